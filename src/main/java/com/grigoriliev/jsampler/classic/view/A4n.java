@@ -189,6 +189,21 @@ public class A4n extends StdA4n {
 		}
 	}
 	
+	public final static Action validateScript = new ValidateLscpScript();
+	
+	private static class ValidateLscpScript extends AbstractAction {
+		ValidateLscpScript() {
+			super(i18n.getMenuLabel("actions.validateScript"));
+			
+			putValue(SHORT_DESCRIPTION, i18n.getMenuLabel("ttValidateScript"));
+		}
+		
+		public void
+		actionPerformed(ActionEvent e) {
+			((MainFrame)SHF.getMainFrame()).validateScript();
+		}
+	}
+	
 	public final static Action addMidiDevice = new AddMidiDevice();
 	
 	private static class AddMidiDevice extends AbstractAction {
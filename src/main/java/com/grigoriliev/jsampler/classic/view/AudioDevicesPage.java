@@ -30,6 +30,11 @@ import java.awt.event.ActionListener;
 
 import java.net.URL;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Vector;
+
 import java.util.logging.Level;
 
 import javax.swing.AbstractAction;
@@ -37,6 +42,7 @@ import javax.swing.Action;
 import javax.swing.BorderFactory;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
+import javax.swing.DefaultComboBoxModel;
 import javax.swing.ImageIcon;
 import javax.swing.JComboBox;
 import javax.swing.JOptionPane;
@@ -198,13 +204,45 @@ public class AudioDevicesPage extends NavigationPage {
 		channelParamTable.getModel().addParameterListener(getHandler());
 	}
 	
+	private AudioDevicesTableModel
+	getDevicesTableModel() { return (AudioDevicesTableModel)devicesTable.getModel(); }
+	
 	private AudioDeviceModel
 	getSelectedAudioDeviceModel() {
 		ListSelectionModel lsm = devicesTable.getSelectionModel();
 		if(lsm.isSelectionEmpty()) return null;
 		
-		return ((AudioDevicesTableModel)devicesTable.getModel()).getAudioDeviceModel (
-			lsm.getMinSelectionIndex()
+		return getDevicesTableModel().getAudioDeviceModel(lsm.getMinSelectionIndex());
+	}
+	
+	/**
+	 * Replaces the items of the channel combo box with the channels
+	 * of the specified device, firing a single event.
+	 * @param d The device whose channels should be shown.
+	 * @param idx The index of the channel to select.
+	 */
+	private void
+	updateChannelList(AudioOutputDevice d, int idx) {
+		AudioOutputChannel[] channels = d.getAudioChannels();
+		cbChannels.setModel(new DefaultComboBoxModel(channels));
+		
+		if(idx >= channels.length) idx = 0;
+		if(channels.length > 0) cbChannels.setSelectedIndex(idx);
+		updateChannelParameters();
+	}
+	
+	/** Shows the parameters of the selected audio channel. */
+	private void
+	updateChannelParameters() {
+		AudioDeviceModel m = getSelectedAudioDeviceModel();
+		int c = cbChannels.getSelectedIndex();
+		if(m == null || c == -1) {
+			channelParamTable.getModel().setParameters(new Parameter[0]);
+			return;
+		}
+		
+		channelParamTable.getModel().setParameters (
+			getDevicesTableModel().getChannelParameters(m, c)
 		);
 	}
 	
@@ -215,52 +253,38 @@ public class AudioDevicesPage extends NavigationPage {
 	
 	private class Handler extends AudioDeviceAdapter implements ActionListener,
 							ListSelectionListener, ParameterListener {
+		/** The device whose settings are currently listened for. */
+		private AudioDeviceModel selectedDevice = null;
+		
 		public void
-		actionPerformed(ActionEvent e) {
-			Object obj = cbChannels.getSelectedItem();
-			if(obj == null) {
-				channelParamTable.getModel().setParameters(new Parameter[0]);
-				return;
-			}
-			
-			AudioOutputChannel c = (AudioOutputChannel)obj;
-			
-			channelParamTable.getModel().setParameters(c.getAllParameters());
-		}
+		actionPerformed(ActionEvent e) { updateChannelParameters(); }
 		
 		public void
 		valueChanged(ListSelectionEvent e) {
 			if(e.getValueIsAdjusting()) return;
 			
-			for(AudioDeviceModel m : CC.getSamplerModel().getAudioDevices()) {
-				m.removeAudioDeviceListener(this);
-			}
+			AudioDeviceModel m = getSelectedAudioDeviceModel();
+			if(m == selectedDevice) return;
 			
-			ListSelectionModel lsm = (ListSelectionModel)e.getSource();
+			if(selectedDevice != null) selectedDevice.removeAudioDeviceListener(this);
+			selectedDevice = m;
 			
-			if(lsm.isSelectionEmpty()) {
+			if(m == null) {
 				duplicateAudioDevice.setEnabled(false);
 				removeAudioDevice.setEnabled(false);
 				audioDeviceProps.setEnabled(false);
 				
-				cbChannels.removeAllItems();
+				cbChannels.setModel(new DefaultComboBoxModel());
 				cbChannels.setEnabled(false);
+				updateChannelParameters();
 				return;
 			}
 			
 			duplicateAudioDevice.setEnabled(true);
 			removeAudioDevice.setEnabled(true);
 			audioDeviceProps.setEnabled(true);
-				
-			AudioDeviceModel m;
-			m = ((AudioDevicesTableModel)devicesTable.getModel()).getAudioDeviceModel (
-				lsm.getMinSelectionIndex()
-			);
 			
-			cbChannels.removeAllItems();
-			for(AudioOutputChannel c : m.getDeviceInfo().getAudioChannels()) {
-				cbChannels.addItem(c);
-			}
+			updateChannelList(m.getDeviceInfo(), 0);
 			cbChannels.setEnabled(true);
 			
 			m.addAudioDeviceListener(this);
@@ -269,15 +293,13 @@ public class AudioDevicesPage extends NavigationPage {
 		/** Invoked when when the settings of a particular audio device have changed. */
 		public void
 		settingsChanged(AudioDeviceEvent e) {
-			AudioOutputDevice d = e.getAudioDeviceModel().getDeviceInfo();
-			
-			int idx = cbChannels.getSelectedIndex();
-			cbChannels.removeAllItems();
-			for(AudioOutputChannel c : d.getAudioChannels()) cbChannels.addItem(c);
+			if(e.getAudioDeviceModel() != selectedDevice) return;
 			
-			if(idx >= cbChannels.getModel().getSize()) idx = 0;
+			// the order in which the listeners are notified is unspecified
+			getDevicesTableModel().invalidateChannelParameters(selectedDevice.getDeviceId());
 			
-			if(cbChannels.getModel().getSize() > 0) cbChannels.setSelectedIndex(idx);
+			int idx = Math.max(0, cbChannels.getSelectedIndex());
+			updateChannelList(e.getAudioDeviceModel().getDeviceInfo(), idx);
 		}
 		
 		/** Invoked when when the value of a particular parameter is changed. */
@@ -420,16 +442,75 @@ class AudioDevicesTableModel extends AbstractTableModel {
 		i18n.getLabel("AudioDevicesTableModel.channels")
 	};
 	
-	private AudioDeviceModel[] deviceList;
+	/** The maximum number of devices whose channel parameters are cached. */
+	private final static int MAX_CACHED_DEVICES = 8;
+	
+	private final Vector<AudioDeviceModel> deviceList = new Vector<AudioDeviceModel>();
+	
+	/** Maps the device IDs to the rows of the devices. */
+	private final HashMap<Integer, Integer> rowsById = new HashMap<Integer, Integer>();
+	
+	/**
+	 * The parameters of the audio channels of the recently browsed devices,
+	 * mapped by device ID, in access order. The parameters of each channel
+	 * are retrieved on first request.
+	 */
+	private final LinkedHashMap<Integer, Parameter[][]> channelParameters =
+		new LinkedHashMap<Integer, Parameter[][]>(16, 0.75f, true) {
+			@Override
+			protected boolean
+			removeEldestEntry(Map.Entry<Integer, Parameter[][]> eldest) {
+				return size() > MAX_CACHED_DEVICES;
+			}
+		};
+	
+	private final Handler handler = new Handler();
 	
 	AudioDevicesTableModel() {
-		CC.getSamplerModel().addAudioDeviceListListener(new Handler());
-		deviceList = CC.getSamplerModel().getAudioDevices();
-		
+		CC.getSamplerModel().addAudioDeviceListListener(handler);
+		for(AudioDeviceModel m : CC.getSamplerModel().getAudioDevices()) {
+			rowsById.put(m.getDeviceId(), deviceList.size());
+			deviceList.add(m);
+			m.addAudioDeviceListener(handler);
+		}
 	}
 	
 	public AudioDeviceModel
-	getAudioDeviceModel(int index) { return deviceList[index]; }
+	getAudioDeviceModel(int index) { return deviceList.get(index); }
+	
+	/**
+	 * Gets the row of the device with the specified ID.
+	 * @return The row of the device, or <code>-1</code> if there is no such device.
+	 */
+	public int
+	getRowByDeviceId(int deviceId) {
+		Integer row = rowsById.get(deviceId);
+		return row == null ? -1 : row;
+	}
+	
+	/**
+	 * Gets the parameters of the specified audio channel. The parameters are
+	 * cached until the settings of the device are changed.
+	 * @param m The audio device.
+	 * @param channel The index of the audio channel.
+	 */
+	public Parameter[]
+	getChannelParameters(AudioDeviceModel m, int channel) {
+		AudioOutputChannel[] channels = m.getDeviceInfo().getAudioChannels();
+		
+		Parameter[][] params = channelParameters.get(m.getDeviceId());
+		if(params == null || params.length != channels.length) {
+			params = new Parameter[channels.length][];
+			channelParameters.put(m.getDeviceId(), params);
+		}
+		
+		if(params[channel] == null) params[channel] = channels[channel].getAllParameters();
+		return params[channel];
+	}
+	
+	/** Removes from the cache the channel parameters of the specified device. */
+	public void
+	invalidateChannelParameters(int deviceId) { channelParameters.remove(deviceId); }
 	
 // The Table Model implementation
 	
@@ -445,7 +526,7 @@ class AudioDevicesTableModel extends AbstractTableModel {
 	 * @return The number of rows in the model.
 	 */
 	public int
-	getRowCount() { return deviceList.length; }
+	getRowCount() { return deviceList.size(); }
 	
 	/**
 	 * Gets the name of the column at <code>columnIndex</code>.
@@ -464,13 +545,15 @@ class AudioDevicesTableModel extends AbstractTableModel {
 	 */
 	public Object
 	getValueAt(int row, int col) {
+		AudioDeviceModel m = deviceList.get(row);
+		
 		switch(col) {
 		case ACTIVE_COLUMN_INDEX:
-			return deviceList[row].getDeviceInfo().isActive();
+			return m.getDeviceInfo().isActive();
 		case DEVICE_ID_COLUMN_INDEX:
-			return deviceList[row].getDeviceId();
+			return m.getDeviceId();
 		case CHANNELS_COLUMN_INDEX:
-			return deviceList[row].getDeviceInfo().getChannelCount();
+			return m.getDeviceInfo().getChannelCount();
 		}
 		
 		return null;
@@ -485,8 +568,8 @@ class AudioDevicesTableModel extends AbstractTableModel {
 		switch(col) {
 		case ACTIVE_COLUMN_INDEX:
 			boolean active = (Boolean)value;
-			deviceList[row].getDeviceInfo().setActive(active);
-			deviceList[row].setBackendActive(active);
+			getAudioDeviceModel(row).getDeviceInfo().setActive(active);
+			getAudioDeviceModel(row).setBackendActive(active);
 			break;
 		case CHANNELS_COLUMN_INDEX:
 			int channels = (Integer)value;
@@ -536,10 +619,14 @@ class AudioDevicesTableModel extends AbstractTableModel {
 		 */
 		public void
 		entryAdded(ListEvent<AudioDeviceModel> e) {
-			for(AudioDeviceModel m : deviceList) m.removeAudioDeviceListener(this);
-			deviceList = CC.getSamplerModel().getAudioDevices();
-			for(AudioDeviceModel m : deviceList) m.addAudioDeviceListener(this);
-			fireTableDataChanged();
+			AudioDeviceModel m = e.getEntry();
+			if(rowsById.containsKey(m.getDeviceId())) return;
+			
+			int row = deviceList.size();
+			rowsById.put(m.getDeviceId(), row);
+			deviceList.add(m);
+			m.addAudioDeviceListener(this);
+			fireTableRowsInserted(row, row);
 		}
 	
 		/**
@@ -549,23 +636,29 @@ class AudioDevicesTableModel extends AbstractTableModel {
 		 */
 		public void
 		entryRemoved(ListEvent<AudioDeviceModel> e) {
-			for(AudioDeviceModel m : deviceList) m.removeAudioDeviceListener(this);
-			deviceList = CC.getSamplerModel().getAudioDevices();
-			for(AudioDeviceModel m : deviceList) m.addAudioDeviceListener(this);
-			fireTableDataChanged();
+			int row = getRowByDeviceId(e.getEntry().getDeviceId());
+			if(row == -1) return;
+			
+			AudioDeviceModel m = deviceList.remove(row);
+			m.removeAudioDeviceListener(this);
+			rowsById.remove(m.getDeviceId());
+			invalidateChannelParameters(m.getDeviceId());
+			
+			for(int i = row; i < deviceList.size(); i++) {
+				rowsById.put(deviceList.get(i).getDeviceId(), i);
+			}
+			
+			fireTableRowsDeleted(row, row);
 		}
 		
 		/** Invoked when when the settings of a particular audio device have changed. */
 		public void
 		settingsChanged(AudioDeviceEvent e) {
-			for(int i = 0; i < deviceList.length; i++) {
-				AudioOutputDevice d = deviceList[i].getDeviceInfo();
-				AudioOutputDevice d2 = e.getAudioDeviceModel().getDeviceInfo();
-				
-				if(d.getDeviceId() == d2.getDeviceId()) {
-					fireTableRowsUpdated(i,  i);
-				}
-			}
+			int id = e.getAudioDeviceModel().getDeviceId();
+			invalidateChannelParameters(id);
+			
+			int row = getRowByDeviceId(id);
+			if(row != -1) fireTableRowsUpdated(row, row);
 		}
 	}
 }
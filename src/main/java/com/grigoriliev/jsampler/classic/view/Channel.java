@@ -52,6 +52,7 @@ import javax.swing.AbstractAction;
 import javax.swing.BorderFactory;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
+import javax.swing.ComboBoxModel;
 import javax.swing.JComponent;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
@@ -62,6 +63,7 @@ import javax.swing.JSeparator;
 import javax.swing.JSlider;
 import javax.swing.JToggleButton;
 import javax.swing.JToolBar;
+import javax.swing.Timer;
 import javax.swing.TransferHandler;
 
 import javax.swing.border.Border;
@@ -70,6 +72,8 @@ import javax.swing.border.TitledBorder;
 
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
 
 import com.grigoriliev.jsampler.juife.swing.InformationDialog;
 import com.grigoriliev.jsampler.juife.swing.JuifeUtils;
@@ -82,11 +86,7 @@ import com.grigoriliev.jsampler.MidiDeviceModel;
 import com.grigoriliev.jsampler.MidiInstrumentMap;
 import com.grigoriliev.jsampler.SamplerChannelModel;
 import com.grigoriliev.jsampler.SamplerModel;
-import com.grigoriliev.jsampler.event.ListEvent;
-import com.grigoriliev.jsampler.event.ListListener;
 import com.grigoriliev.jsampler.event.MidiDeviceEvent;
-import com.grigoriliev.jsampler.event.MidiDeviceListEvent;
-import com.grigoriliev.jsampler.event.MidiDeviceListListener;
 import com.grigoriliev.jsampler.event.MidiDeviceListener;
 import com.grigoriliev.jsampler.event.SamplerAdapter;
 import com.grigoriliev.jsampler.event.SamplerChannelAdapter;
@@ -148,22 +148,13 @@ public class Channel extends com.grigoriliev.jsampler.swing.view.SwingChannel {
 	static {
 		numberFormat.setMaximumFractionDigits(1);
 		
-		iconEdit = new ImageIcon(Channel.class.getResource("res/icons/edit.png"));
-		
-		String path = "com/grigoriliev/jsampler/classic/view/res/icons/";
-
-		iconMuteOn = new ImageIcon(Res.getUrl(path + "mute_on.png"));
-		
-		iconMuteOff = new ImageIcon(Res.getUrl(path + "mute_off.png"));
-		
-		iconMutedBySolo = new ImageIcon(Res.getUrl(path + "muted_by_solo.png"));
-		
-		iconSoloOn = new ImageIcon(Res.getUrl(path + "solo_on.png"));
-		
-		iconSoloOff = new ImageIcon(Res.getUrl(path + "solo_off.png"));
-		
-		iconShowProperties = new ImageIcon(Res.getUrl(path + "Back16.gif"));
-		
+		iconEdit = Res.getIcon("res/icons/edit.png");
+		iconMuteOn = Res.getIcon("res/icons/mute_on.png");
+		iconMuteOff = Res.getIcon("res/icons/mute_off.png");
+		iconMutedBySolo = Res.getIcon("res/icons/muted_by_solo.png");
+		iconSoloOn = Res.getIcon("res/icons/solo_on.png");
+		iconSoloOff = Res.getIcon("res/icons/solo_off.png");
+		iconShowProperties = Res.iconBack16;
 		iconHideProperties = Res.iconDown16;
 		
 		if(ClassicPrefs.getCustomChannelBorderColor())
@@ -306,24 +297,25 @@ public class Channel extends com.grigoriliev.jsampler.swing.view.SwingChannel {
 	}
 	
 	
+	/**
+	 * The time in milliseconds after the channel is collapsed
+	 * before its properties pane is destroyed.
+	 */
+	private final static int PROPERTIES_IDLE_TIMEOUT = 30000;
+	
 	private final JPanel mainPane = new JPanel();
-	private final ChannelProperties propertiesPane;
-	private final JButton btnInstr = new InstrumentButton(i18n.getLabel("Channel.btnInstr"));
-	private final Action actInstr;
-	private final JButton btnEdit = new JButton(iconEdit);
-	private final JButton btnMute = new JButton();
-	private final JButton btnSolo = new JButton();
-	private final JSlider slVolume = new JSlider(0, 100);
-	private final JLabel lVolume = new JLabel();
-	private final JLabel lVolImg = new JLabel(Res.iconVolume16);
-	private final JLabel lStreams = new JLabel("--");
-	private final JLabel lVoices = new JLabel("--");
-	private final JToggleButton btnProperties = new JToggleButton();
+	private ChannelProperties propertiesPane = null;
+	private Timer propertiesTimer = null;
+	private final JPanel placeholder = new JPanel();
+	private ChannelStrip strip = null;
 	
 	private static int count = 2;
 	
 	private boolean selected = false;
 	private boolean mouseOver = false;
+	private boolean expanded = false;
+	
+	private ChannelUpdateScheduler updateScheduler = null;
 	
 	
 	/**
@@ -333,7 +325,18 @@ public class Channel extends com.grigoriliev.jsampler.swing.view.SwingChannel {
 	 * @throws IllegalArgumentException If the model is <code>null</code>.
 	 */
 	public
-	Channel(SamplerChannelModel model) {
+	Channel(SamplerChannelModel model) { this(model, true); }
+	
+	/**
+	 * Creates a new instance of <code>Channel</code> using the specified
+	 * non-<code>null</code> channel model.
+	 * @param model The model to be used by this channel.
+	 * @param materialize Specifies whether the channel strip should be created now.
+	 * If <code>false</code>, a placeholder with the same height is used until
+	 * a strip is attached with {@link #materialize}.
+	 * @throws IllegalArgumentException If the model is <code>null</code>.
+	 */
+	Channel(SamplerChannelModel model, boolean materialize) {
 		super(model);
 		
 		setBorder(BorderFactory.createEmptyBorder(1, 1, 1, 1));
@@ -342,248 +345,78 @@ public class Channel extends com.grigoriliev.jsampler.swing.view.SwingChannel {
 		addMouseListener(getHandler());
 		addHierarchyListener(getHandler());
 		
-		JPanel p = new JPanel();
-		p.setOpaque(false);
-		p.setLayout(new BoxLayout(p, BoxLayout.X_AXIS));
-		p.setBorder(BorderFactory.createEmptyBorder(3, 3, 3, 3));
-		
 		setToolTipText(i18n.getLabel("Channel.tt", getModel().getChannelId()));
 		
-		Dimension d = btnInstr.getPreferredSize();
-		btnInstr.setMaximumSize(new Dimension(Short.MAX_VALUE, d.height));
-		p.add(btnInstr);
-		p.add(Box.createRigidArea(new Dimension(6, 0)));
-		
-		btnEdit.setToolTipText(i18n.getLabel("Channel.btnEdit.tt"));
-		btnEdit.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 0));
-		p.add(btnEdit);
-		p.add(Box.createRigidArea(new Dimension(6, 0)));
-		
-		lStreams.setHorizontalAlignment(JLabel.CENTER);
-		lVoices.setHorizontalAlignment(JLabel.CENTER);
-		
-		JPanel statPane = new JPanel();
-		statPane.setOpaque(false);
-		statPane.setBorder(BorderFactory.createLoweredBevelBorder());
-		statPane.setLayout(new BoxLayout(statPane, BoxLayout.X_AXIS));
-		statPane.add(Box.createRigidArea(new Dimension(6, 0)));
-		statPane.add(lStreams);
-		statPane.add(new JLabel("/"));
-		statPane.add(lVoices);
-		statPane.add(Box.createRigidArea(new Dimension(6, 0)));
-		
-		p.add(statPane);
-		
-		p.add(Box.createRigidArea(new Dimension(6, 0)));
-		
-		btnMute.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 0));
-		p.add(btnMute);
-		p.add(Box.createRigidArea(new Dimension(6, 0)));
-		
-		btnSolo.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 0));
-		p.add(btnSolo);
-		p.add(Box.createRigidArea(new Dimension(6, 0)));
-		
-		JPanel volumePane = new JPanel();
-		volumePane.setOpaque(false);
-		volumePane.setBorder(BorderFactory.createLoweredBevelBorder());
-		volumePane.setLayout(new BoxLayout(volumePane, BoxLayout.X_AXIS));
-		volumePane.add(Box.createRigidArea(new Dimension(6, 0)));
-		
-		volumePane.add(lVolImg);
-		volumePane.add(Box.createRigidArea(new Dimension(1, 0)));
-		
-		d = slVolume.getPreferredSize();
-		slVolume.setMaximumSize(new Dimension(d.width > 300 ? d.width : 300, d.height));
-		slVolume.setOpaque(false);
-		volumePane.add(slVolume);
-		
-		lVolume.setBorder(BorderFactory.createEmptyBorder(3, 6, 3, 6));
-		lVolume.setHorizontalAlignment(lVolume.RIGHT);
-		
-		// We use this to set the size of the lVolume
-		// to prevent the frequent resizing of lVolume component
-		if(CC.getViewConfig().isMeasurementUnitDecibel()) {
-			lVolume.setText("-30.0dB");
+		placeholder.setOpaque(false);
+		
+		if(materialize) {
+			strip = new ChannelStrip();
+			strip.bind(this);
+			mainPane.add(strip);
 		} else {
-			lVolume.setText("100%");
+			Dimension d = new Dimension(0, ChannelStrip.getPrototypeHeight());
+			placeholder.setPreferredSize(d);
+			mainPane.add(placeholder);
 		}
-		lVolume.setPreferredSize(lVolume.getPreferredSize());
-		
-		volumePane.add(lVolume);
-		
-		p.add(volumePane);
-		p.add(Box.createRigidArea(new Dimension(6, 0)));
 		
-		btnProperties.setContentAreaFilled(false);
-		btnProperties.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 0));
-		btnProperties.setIcon(iconShowProperties);
-		btnProperties.setSelectedIcon(iconHideProperties);
-		p.add(btnProperties);
-		
-		mainPane.add(p);
-		
-		propertiesPane = new ChannelProperties(model);
-		propertiesPane.setBorder(BorderFactory.createEmptyBorder(0, 3, 3, 3));
-		propertiesPane.setVisible(false);
-		mainPane.add(propertiesPane);
 		add(mainPane);
 		
-		d = getPreferredSize();
+		Dimension d = getPreferredSize();
 		setMaximumSize(new Dimension(getMaximumSize().width, d.height));
 		
-		int i = preferences().getIntProperty(MAXIMUM_CHANNEL_VOLUME);
-		slVolume.setMaximum(i);
-		String mcv = MAXIMUM_CHANNEL_VOLUME;
-		preferences().addPropertyChangeListener(mcv, new PropertyChangeListener() {
-			public void
-			propertyChange(PropertyChangeEvent e) {
-				int j = preferences().getIntProperty(MAXIMUM_CHANNEL_VOLUME);
-				slVolume.setMaximum(j);
-			}
-		});
-		
-		String vmud = VOL_MEASUREMENT_UNIT_DECIBEL;
-		preferences().addPropertyChangeListener(vmud, new PropertyChangeListener() {
-			public void
-			propertyChange(PropertyChangeEvent e) {
-				boolean b;
-				b = preferences().getBoolProperty(VOL_MEASUREMENT_UNIT_DECIBEL);
-				// We use this to set the size of the lVolume
-				// to prevent the frequent resizing of lVolume component
-				lVolume.setPreferredSize(null);
-				if(b) lVolume.setText("-30.0dB");
-				else lVolume.setText("100%");
-				lVolume.setPreferredSize(lVolume.getPreferredSize());
-				///////
-				updateVolume();
-			}
-		});
-		
 		getModel().addSamplerChannelListener(getHandler());
 		
-		actInstr = new AbstractAction() {
-			public void
-			actionPerformed(ActionEvent e) {
-				if(actInstr.isEnabled()) loadInstrument();
-			}
-		};
-		
-		btnInstr.addActionListener(actInstr);
-		
-		btnEdit.addActionListener(new ActionListener() {
-			public void
-			actionPerformed(ActionEvent e) {
-				CC.getSamplerModel().editBackendInstrument(getChannelId());
-			}
-		});
-		
-		btnMute.addActionListener(new ActionListener() {
-			public void
-			actionPerformed(ActionEvent e) { changeMute(); }
-		});
-		
-		btnSolo.addActionListener(new ActionListener() {
-			public void
-			actionPerformed(ActionEvent e) { changeSolo(); }
-		});
-		
-		slVolume.addChangeListener(new ChangeListener() {
-			public void
-			stateChanged(ChangeEvent e) { setVolume(); }
-		});
-		
-		btnProperties.addActionListener(new ActionListener() {
-			public void
-			actionPerformed(ActionEvent e) {
-				showProperties(btnProperties.isSelected());
-				
-				String s;
-				if(btnProperties.isSelected()) {
-					s = i18n.getButtonLabel("Channel.ttHideProps");
-				} else {
-					s = i18n.getButtonLabel("Channel.ttShowProps");
-				}
-				
-				btnProperties.setToolTipText(s);
-			}
-		});
-		
-		btnProperties.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
-		
-		String s;
-		if(btnProperties.isSelected()) s = i18n.getButtonLabel("Channel.ttHideProps");
-		else s = i18n.getButtonLabel("Channel.ttShowProps");
-		
-		btnProperties.setToolTipText(s);
-		
 		addPropertyChangeListener(getHandler());
 		
 		updateChannelInfo();
 	}
 	
-	public class InstrumentButton extends JButton {
-		private boolean dragging = false;
-		
-		InstrumentButton(String s) {
-			super(s);
-			
-			setTransferHandler(new TransferHandler("instrument"));
-			
-			addMouseListener(new MouseAdapter() {
-				public void
-				mouseExited(MouseEvent e) {
-					if(!dragging) return;
-					
-					int b1 = e.BUTTON1_DOWN_MASK;
-					if((e.getModifiersEx() & b1) != b1) return;
-					
-					actInstr.setEnabled(false);
-					doClick(0);
-					actInstr.setEnabled(true);
-					
-					JComponent c = (JComponent)e.getSource();
-					TransferHandler handler = c.getTransferHandler();
-					handler.exportAsDrag(c, e, TransferHandler.COPY);
-				}
-				
-				public void
-				mouseReleased(MouseEvent e) { dragging = false; }
-			});
-			
-			addMouseMotionListener(new MouseMotionAdapter() {
-				public void
-				mouseDragged(MouseEvent e) { dragging = true; }
-			});
-		}
-		
-		public String
-		getInstrument() {
-			SamplerChannel sc = Channel.this.getChannelInfo();
-			
-			if(sc.getInstrumentName() == null || sc.getInstrumentStatus() < 0)
-				return null;
-			
-			OrchestraInstrument instr = new OrchestraInstrument();
-			instr.setName(sc.getInstrumentName());
-			instr.setInstrumentIndex(sc.getInstrumentIndex());
-			instr.setFilePath(sc.getInstrumentFile());
-			return instr.getDnDString();
-		}
-		
-		public void setInstrument(String instr) {
-			if(!OrchestraInstrument.isDnDString(instr)) return;
-			
-			String[] args = instr.split("\n");
-			if(args.length < 6) return;
-			
-			try {
-				int idx = Integer.parseInt(args[5]);
-				Channel.this.getModel().loadBackendInstrument(args[4], idx);
-			} catch(Exception x) {
-				CC.getLogger().log(Level.INFO, HF.getErrorMessage(x), x);
-			}
-		}
+	/**
+	 * Determines whether this channel has a channel strip attached.
+	 * @return <code>true</code> if this channel has a channel strip attached,
+	 * <code>false</code> if a placeholder is shown instead.
+	 */
+	boolean
+	isMaterialized() { return strip != null; }
+	
+	/**
+	 * Attaches the specified channel strip to this channel.
+	 * @param s The channel strip to be used by this channel.
+	 */
+	void
+	materialize(ChannelStrip s) {
+		if(strip != null) return;
+		
+		strip = s;
+		mainPane.remove(placeholder);
+		mainPane.add(strip, 0);
+		strip.bind(this);
+		mainPane.revalidate();
+		mainPane.repaint();
+	}
+	
+	/**
+	 * Detaches the channel strip from this channel and replaces it
+	 * with a placeholder with the same height.
+	 * @return The detached channel strip, which can be reused by another channel,
+	 * or <code>null</code> if this channel has no channel strip attached.
+	 */
+	ChannelStrip
+	dematerialize() {
+		if(strip == null) return null;
+		if(updateScheduler != null) updateScheduler.cancel(this);
+		
+		ChannelStrip s = strip;
+		strip = null;
+		int h = s.getHeight() > 0 ? s.getHeight() : ChannelStrip.getPrototypeHeight();
+		placeholder.setPreferredSize(new Dimension(0, h));
+		mainPane.remove(s);
+		mainPane.add(placeholder, 0);
+		s.unbind();
+		mainPane.revalidate();
+		mainPane.repaint();
+		
+		return s;
 	}
 	
 	private final EventHandler eventHandler = new EventHandler();
@@ -608,7 +441,9 @@ public class Channel extends com.grigoriliev.jsampler.swing.view.SwingChannel {
 		 */
 		public void
 		streamCountChanged(SamplerChannelEvent e) {
-			updateStreamCount(getModel().getStreamCount());
+			if(strip == null) return;
+			if(updateScheduler != null) updateScheduler.markDirty(Channel.this);
+			else strip.updateStreamCount(getModel().getStreamCount());
 		}
 	
 		/**
@@ -618,7 +453,9 @@ public class Channel extends com.grigoriliev.jsampler.swing.view.SwingChannel {
 		 */
 		public void
 		voiceCountChanged(SamplerChannelEvent e) {
-			updateVoiceCount(getModel().getVoiceCount());
+			if(strip == null) return;
+			if(updateScheduler != null) updateScheduler.markDirty(Channel.this);
+			else strip.updateVoiceCount(getModel().getVoiceCount());
 		}
 		
 		public void
@@ -698,190 +535,629 @@ public class Channel extends com.grigoriliev.jsampler.swing.view.SwingChannel {
 		}
 	}
 	
+	/**
+	 * Determines whether the channel properties are shown.
+	 * @return <code>true</code> if the channel properties are shown,
+	 * <code>false</code> otherwise.
+	 */
+	boolean
+	isExpanded() { return expanded; }
+	
 	/** Hides the channel properties. */
 	public void
-	collapseChannel() { if(btnProperties.isSelected()) btnProperties.doClick(); }
+	collapseChannel() { if(isExpanded()) showProperties(false); }
 	
 	/** Shows the channel properties. */
 	public void
-	expandChannel() { if(!btnProperties.isSelected()) btnProperties.doClick(); }
+	expandChannel() { if(!isExpanded()) showProperties(true); }
 	
 	/**
 	 * Updates the channel settings. This method is invoked when changes to the
 	 * channel were made.
 	 */
 	private void
-	updateChannelInfo() {
-		SamplerChannel sc = getChannelInfo();
-		
-		int status = sc.getInstrumentStatus();
-		if(status >= 0 && status < 100) {
-			btnInstr.setText(i18n.getLabel("Channel.loadingInstrument", status));
-		} else if(status == -1) {
-			btnInstr.setText(i18n.getLabel("Channel.btnInstr"));
-		} else if(status < -1) {
-			 btnInstr.setText(i18n.getLabel("Channel.errorLoadingInstrument"));
+	updateChannelInfo() { if(strip != null) strip.updateChannelInfo(); }
+	
+	/**
+	 * Gets the scheduler used to coalesce the voice and stream count updates.
+	 * @return The scheduler used to coalesce the voice and stream count updates,
+	 * or <code>null</code> if the counters are updated immediately.
+	 */
+	ChannelUpdateScheduler
+	getUpdateScheduler() { return updateScheduler; }
+	
+	/**
+	 * Sets the scheduler used to coalesce the voice and stream count updates.
+	 * @param scheduler The scheduler to be used or <code>null</code>
+	 * to update the counters immediately.
+	 */
+	void
+	setUpdateScheduler(ChannelUpdateScheduler scheduler) {
+		if(updateScheduler == scheduler) return;
+		if(updateScheduler != null) updateScheduler.cancel(this);
+		updateScheduler = scheduler;
+		updateCounters();
+	}
+	
+	/**
+	 * Updates the number of active disk streams and voices
+	 * with the current values from the channel model.
+	 */
+	void
+	updateCounters() {
+		if(strip == null) return;
+		strip.updateStreamCount(getModel().getStreamCount());
+		strip.updateVoiceCount(getModel().getVoiceCount());
+	}
+	
+	/**
+	 * Shows or hides the channel properties. The properties pane is created
+	 * when shown for the first time and is destroyed if the channel
+	 * remains collapsed for {@link #PROPERTIES_IDLE_TIMEOUT} milliseconds.
+	 * @param show Specifies whether the channel properties should be shown.
+	 */
+	void
+	showProperties(boolean show) {
+		expanded = show;
+		if(strip != null) strip.updatePropertiesButton(show);
+		
+		if(show) {
+			if(propertiesTimer != null) propertiesTimer.stop();
+			
+			if(propertiesPane == null) {
+				propertiesPane = new ChannelProperties(getModel()) {
+					@Override
+					protected void
+					onDestroy() {
+						super.onDestroy();
+						// The channel may be removed while the idle timer is pending
+						stopPropertiesTimer();
+					}
+				};
+				propertiesPane.setBorder(BorderFactory.createEmptyBorder(0, 3, 3, 3));
+				mainPane.add(propertiesPane);
+			}
+			
+			propertiesPane.setVisible(true);
 		} else {
-			if(sc.getInstrumentName() != null) btnInstr.setText(sc.getInstrumentName());
-			else btnInstr.setText(i18n.getLabel("Channel.btnInstr"));
+			if(propertiesPane == null) return;
+			propertiesPane.setVisible(false);
+			
+			if(propertiesTimer == null) {
+				propertiesTimer = new Timer(PROPERTIES_IDLE_TIMEOUT, new ActionListener() {
+					public void
+					actionPerformed(ActionEvent e) { destroyProperties(); }
+				});
+				propertiesTimer.setRepeats(false);
+			}
+			
+			propertiesTimer.restart();
 		}
 		
-		boolean b = status == 100;
-		if(btnEdit.isEnabled() != b) btnEdit.setEnabled(b);
-		
-		updateMuteIcon(sc);
-		
-		if(sc.isSoloChannel()) btnSolo.setIcon(iconSoloOn);
-		else btnSolo.setIcon(iconSoloOff);
-		
-		slVolume.setValue((int)(sc.getVolume() * 100));
+		mainPane.revalidate();
+	}
+	
+	/**
+	 * Destroys the properties pane of this channel, if the channel is collapsed.
+	 * The properties pane stops listening for device and map changes
+	 * and will be created again when the channel is expanded.
+	 */
+	private void
+	destroyProperties() {
+		if(expanded || propertiesPane == null) return;
 		
-		b = sc.getEngine() != null;
-		slVolume.setEnabled(b);
-		btnSolo.setEnabled(b);
-		btnMute.setEnabled(b);
+		if(!propertiesPane.isDestroyed()) propertiesPane.onDestroy();
+		mainPane.remove(propertiesPane);
+		propertiesPane = null;
 	}
 	
-	/** Invoked when the user clicks the mute button. */
 	private void
-	changeMute() {
-		SamplerChannel sc = getChannelInfo();
-		boolean b = true;
+	stopPropertiesTimer() {
+		if(propertiesTimer == null) return;
+		
+		propertiesTimer.stop();
+		propertiesTimer = null;
+	}
+	
+	/**
+	 * This class represents the strip with the main controls of a channel -
+	 * the instrument button, the stream and voice counters, the mute and solo
+	 * buttons and the volume slider. A strip can be detached from its channel
+	 * and reused by another channel.
+	 */
+	static class ChannelStrip extends JPanel {
+		private static int prototypeHeight = -1;
+		
+		private Channel channel = null;
+		
+		private final JButton btnInstr = new InstrumentButton(i18n.getLabel("Channel.btnInstr"));
+		private final Action actInstr;
+		private final JButton btnEdit = new JButton(iconEdit);
+		private final JButton btnMute = new JButton();
+		private final JButton btnSolo = new JButton();
+		private final JSlider slVolume = new JSlider(0, 100);
+		private final JLabel lVolume = new JLabel();
+		private final JLabel lVolImg = new JLabel(Res.iconVolume16);
+		private final JLabel lStreams = new JLabel("--");
+		private final JLabel lVoices = new JLabel("--");
+		private final JToggleButton btnProperties = new JToggleButton();
+		
+		private final PropertyChangeListener maxVolumeListener;
+		private final PropertyChangeListener volumeUnitListener;
 		
-		/*
-		 * Changing the mute button icon now instead of
-		 * leaving the work to the notification mechanism of the LinuxSampler.
+		/**
+		 * Gets the preferred height of a channel strip.
+		 * @return The preferred height of a channel strip.
 		 */
-		if(sc.isMuted() && !sc.isMutedBySolo()) {
-			b = false;
-			boolean hasSolo = CC.getSamplerModel().hasSoloChannel();
+		static int
+		getPrototypeHeight() {
+			if(prototypeHeight == -1) {
+				ChannelStrip s = new ChannelStrip();
+				prototypeHeight = s.getPreferredSize().height;
+				s.dispose();
+			}
 			
-			if(sc.isSoloChannel() || !hasSolo) btnMute.setIcon(iconMuteOff);
-			else btnMute.setIcon(iconMutedBySolo);
-		} else btnMute.setIcon(iconMuteOn);
+			return prototypeHeight;
+		}
 		
-		getModel().setBackendMute(b);
-	}
-	
-	/** Invoked when the user clicks the solo button. */
-	private void
-	changeSolo() {
-		SamplerChannel sc = getChannelInfo();
-		boolean b = !sc.isSoloChannel();
+		/** Creates a new instance of <code>ChannelStrip</code>. */
+		ChannelStrip() {
+			setOpaque(false);
+			setLayout(new BoxLayout(this, BoxLayout.X_AXIS));
+			setBorder(BorderFactory.createEmptyBorder(3, 3, 3, 3));
+			
+			Dimension d = btnInstr.getPreferredSize();
+			btnInstr.setMaximumSize(new Dimension(Short.MAX_VALUE, d.height));
+			add(btnInstr);
+			add(Box.createRigidArea(new Dimension(6, 0)));
+			
+			btnEdit.setToolTipText(i18n.getLabel("Channel.btnEdit.tt"));
+			btnEdit.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 0));
+			add(btnEdit);
+			add(Box.createRigidArea(new Dimension(6, 0)));
+			
+			lStreams.setHorizontalAlignment(JLabel.CENTER);
+			lVoices.setHorizontalAlignment(JLabel.CENTER);
+			
+			JPanel statPane = new JPanel();
+			statPane.setOpaque(false);
+			statPane.setBorder(BorderFactory.createLoweredBevelBorder());
+			statPane.setLayout(new BoxLayout(statPane, BoxLayout.X_AXIS));
+			statPane.add(Box.createRigidArea(new Dimension(6, 0)));
+			statPane.add(lStreams);
+			statPane.add(new JLabel("/"));
+			statPane.add(lVoices);
+			statPane.add(Box.createRigidArea(new Dimension(6, 0)));
+			
+			add(statPane);
+			
+			add(Box.createRigidArea(new Dimension(6, 0)));
+			
+			btnMute.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 0));
+			add(btnMute);
+			add(Box.createRigidArea(new Dimension(6, 0)));
+			
+			btnSolo.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 0));
+			add(btnSolo);
+			add(Box.createRigidArea(new Dimension(6, 0)));
+			
+			JPanel volumePane = new JPanel();
+			volumePane.setOpaque(false);
+			volumePane.setBorder(BorderFactory.createLoweredBevelBorder());
+			volumePane.setLayout(new BoxLayout(volumePane, BoxLayout.X_AXIS));
+			volumePane.add(Box.createRigidArea(new Dimension(6, 0)));
+			
+			volumePane.add(lVolImg);
+			volumePane.add(Box.createRigidArea(new Dimension(1, 0)));
+			
+			d = slVolume.getPreferredSize();
+			slVolume.setMaximumSize(new Dimension(d.width > 300 ? d.width : 300, d.height));
+			slVolume.setOpaque(false);
+			volumePane.add(slVolume);
+			
+			lVolume.setBorder(BorderFactory.createEmptyBorder(3, 6, 3, 6));
+			lVolume.setHorizontalAlignment(lVolume.RIGHT);
+			
+			// We use this to set the size of the lVolume
+			// to prevent the frequent resizing of lVolume component
+			if(CC.getViewConfig().isMeasurementUnitDecibel()) {
+				lVolume.setText("-30.0dB");
+			} else {
+				lVolume.setText("100%");
+			}
+			lVolume.setPreferredSize(lVolume.getPreferredSize());
+			
+			volumePane.add(lVolume);
+			
+			add(volumePane);
+			add(Box.createRigidArea(new Dimension(6, 0)));
+			
+			btnProperties.setContentAreaFilled(false);
+			btnProperties.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 0));
+			btnProperties.setIcon(iconShowProperties);
+			btnProperties.setSelectedIcon(iconHideProperties);
+			add(btnProperties);
+			
+			int i = preferences().getIntProperty(MAXIMUM_CHANNEL_VOLUME);
+			slVolume.setMaximum(i);
+			maxVolumeListener = new PropertyChangeListener() {
+				public void
+				propertyChange(PropertyChangeEvent e) {
+					int j = preferences().getIntProperty(MAXIMUM_CHANNEL_VOLUME);
+					slVolume.setMaximum(j);
+				}
+			};
+			preferences().addPropertyChangeListener(MAXIMUM_CHANNEL_VOLUME, maxVolumeListener);
+			
+			volumeUnitListener = new PropertyChangeListener() {
+				public void
+				propertyChange(PropertyChangeEvent e) {
+					boolean b;
+					b = preferences().getBoolProperty(VOL_MEASUREMENT_UNIT_DECIBEL);
+					// We use this to set the size of the lVolume
+					// to prevent the frequent resizing of lVolume component
+					lVolume.setPreferredSize(null);
+					if(b) lVolume.setText("-30.0dB");
+					else lVolume.setText("100%");
+					lVolume.setPreferredSize(lVolume.getPreferredSize());
+					///////
+					updateVolume();
+				}
+			};
+			String vmud = VOL_MEASUREMENT_UNIT_DECIBEL;
+			preferences().addPropertyChangeListener(vmud, volumeUnitListener);
+			
+			actInstr = new AbstractAction() {
+				public void
+				actionPerformed(ActionEvent e) {
+					if(actInstr.isEnabled() && channel != null) loadInstrument();
+				}
+			};
+			
+			btnInstr.addActionListener(actInstr);
+			
+			btnEdit.addActionListener(new ActionListener() {
+				public void
+				actionPerformed(ActionEvent e) {
+					if(channel == null) return;
+					CC.getSamplerModel().editBackendInstrument(channel.getChannelId());
+				}
+			});
+			
+			btnMute.addActionListener(new ActionListener() {
+				public void
+				actionPerformed(ActionEvent e) { if(channel != null) changeMute(); }
+			});
+			
+			btnSolo.addActionListener(new ActionListener() {
+				public void
+				actionPerformed(ActionEvent e) { if(channel != null) changeSolo(); }
+			});
+			
+			slVolume.addChangeListener(new ChangeListener() {
+				public void
+				stateChanged(ChangeEvent e) { if(channel != null) setVolume(); }
+			});
+			
+			btnProperties.addActionListener(new ActionListener() {
+				public void
+				actionPerformed(ActionEvent e) {
+					if(channel != null) channel.showProperties(btnProperties.isSelected());
+				}
+			});
+			
+			btnProperties.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+			
+			updatePropertiesButton(false);
+		}
 		
-		/*
-		 * Changing the solo button icon (and related) now instead of
-		 * leaving the work to the notification mechanism of the LinuxSampler.
+		/**
+		 * Gets the channel this strip is attached to.
+		 * @return The channel this strip is attached to or
+		 * <code>null</code> if the strip is not attached.
 		 */
-		if(b) {
-			btnSolo.setIcon(iconSoloOn);
-			if(sc.isMutedBySolo()) btnMute.setIcon(iconMuteOff);
-		} else {
-			btnSolo.setIcon(iconSoloOff);
-			if(!sc.isMuted() && CC.getSamplerModel().getSoloChannelCount() > 1)
-				btnMute.setIcon(iconMutedBySolo);
+		Channel
+		getChannel() { return channel; }
+		
+		/**
+		 * Attaches this strip to the specified channel
+		 * and updates the controls with the channel settings.
+		 * @param channel The channel to which this strip should be attached.
+		 */
+		void
+		bind(Channel channel) {
+			this.channel = channel;
+			
+			// Drop the counter sizes grown while showing the previous channel
+			lStreams.setMinimumSize(null);
+			lStreams.setPreferredSize(null);
+			lStreams.setMaximumSize(null);
+			lVoices.setMinimumSize(null);
+			lVoices.setPreferredSize(null);
+			lVoices.setMaximumSize(null);
+			
+			updatePropertiesButton(channel.isExpanded());
+			updateChannelInfo();
+			updateStreamCount(channel.getModel().getStreamCount());
+			updateVoiceCount(channel.getModel().getVoiceCount());
 		}
 		
-		getModel().setBackendSolo(b);
-	}
-	
-	/** Invoked when the user changes the volume */
-	private void
-	setVolume() {
-		updateVolume();
+		/** Detaches this strip from its channel. */
+		void
+		unbind() { channel = null; }
 		
-		if(slVolume.getValueIsAdjusting()) return;
+		/** Stops listening for preference changes. The strip can't be used afterwards. */
+		void
+		dispose() {
+			preferences().removePropertyChangeListener(MAXIMUM_CHANNEL_VOLUME, maxVolumeListener);
+			
+			String vmud = VOL_MEASUREMENT_UNIT_DECIBEL;
+			preferences().removePropertyChangeListener(vmud, volumeUnitListener);
+		}
 		
-		int vol = (int)(getChannelInfo().getVolume() * 100);
+		/**
+		 * Updates the state and the tool tip of the button used to show/hide
+		 * the channel properties.
+		 * @param expanded Specifies whether the channel properties are shown.
+		 */
+		void
+		updatePropertiesButton(boolean expanded) {
+			btnProperties.setSelected(expanded);
+			
+			String s;
+			if(expanded) s = i18n.getButtonLabel("Channel.ttHideProps");
+			else s = i18n.getButtonLabel("Channel.ttShowProps");
+			
+			btnProperties.setToolTipText(s);
+		}
 		
-		if(vol == slVolume.getValue()) return;
+		public class InstrumentButton extends JButton {
+			private boolean dragging = false;
+			
+			InstrumentButton(String s) {
+				super(s);
+				
+				setTransferHandler(new TransferHandler("instrument"));
+				
+				addMouseListener(new MouseAdapter() {
+					public void
+					mouseExited(MouseEvent e) {
+						if(!dragging) return;
+						
+						int b1 = e.BUTTON1_DOWN_MASK;
+						if((e.getModifiersEx() & b1) != b1) return;
+						
+						actInstr.setEnabled(false);
+						doClick(0);
+						actInstr.setEnabled(true);
+						
+						JComponent c = (JComponent)e.getSource();
+						TransferHandler handler = c.getTransferHandler();
+						handler.exportAsDrag(c, e, TransferHandler.COPY);
+					}
+					
+					public void
+					mouseReleased(MouseEvent e) { dragging = false; }
+				});
+				
+				addMouseMotionListener(new MouseMotionAdapter() {
+					public void
+					mouseDragged(MouseEvent e) { dragging = true; }
+				});
+			}
+			
+			public String
+			getInstrument() {
+				if(channel == null) return null;
+				SamplerChannel sc = channel.getChannelInfo();
+				
+				if(sc.getInstrumentName() == null || sc.getInstrumentStatus() < 0)
+					return null;
+				
+				OrchestraInstrument instr = new OrchestraInstrument();
+				instr.setName(sc.getInstrumentName());
+				instr.setInstrumentIndex(sc.getInstrumentIndex());
+				instr.setFilePath(sc.getInstrumentFile());
+				return instr.getDnDString();
+			}
+			
+			public void setInstrument(String instr) {
+				if(channel == null) return;
+				if(!OrchestraInstrument.isDnDString(instr)) return;
+				
+				String[] args = instr.split("\n");
+				if(args.length < 6) return;
+				
+				try {
+					int idx = Integer.parseInt(args[5]);
+					channel.getModel().loadBackendInstrument(args[4], idx);
+				} catch(Exception x) {
+					CC.getLogger().log(Level.INFO, HF.getErrorMessage(x), x);
+				}
+			}
+		}
 		
-		/*
-		 * If the model's volume is not equal to the slider
-		 * value we assume that the change is due to user input.
-		 * So we must update the volume at the backend too.
+		/**
+		 * Updates the controls with the current settings of the channel.
+		 * This method is invoked when changes to the channel were made.
 		 */
-		float volume = slVolume.getValue();
-		volume /= 100;
-		getModel().setBackendVolume(volume);
-	}
-	
-	private void
-	updateVolume() {
-		int volume = slVolume.getValue();
-		
-		if(CC.getViewConfig().isMeasurementUnitDecibel()) {
-			String dB = numberFormat.format(HF.percentsToDecibels(volume));
-			slVolume.setToolTipText(i18n.getLabel("Channel.volumeDecibels", dB));
-			lVolImg.setToolTipText(i18n.getLabel("Channel.volumeDecibels", dB));
-			lVolume.setText(dB + "dB");
-		} else {
-			slVolume.setToolTipText(i18n.getLabel("Channel.volume", volume));
-			lVolImg.setToolTipText(i18n.getLabel("Channel.volume", volume));
-			lVolume.setText(String.valueOf(volume) + '%');
+		void
+		updateChannelInfo() {
+			SamplerChannel sc = channel.getChannelInfo();
+			
+			int status = sc.getInstrumentStatus();
+			if(status >= 0 && status < 100) {
+				btnInstr.setText(i18n.getLabel("Channel.loadingInstrument", status));
+			} else if(status == -1) {
+				btnInstr.setText(i18n.getLabel("Channel.btnInstr"));
+			} else if(status < -1) {
+				 btnInstr.setText(i18n.getLabel("Channel.errorLoadingInstrument"));
+			} else {
+				if(sc.getInstrumentName() != null) btnInstr.setText(sc.getInstrumentName());
+				else btnInstr.setText(i18n.getLabel("Channel.btnInstr"));
+			}
+			
+			boolean b = status == 100;
+			if(btnEdit.isEnabled() != b) btnEdit.setEnabled(b);
+			
+			updateMuteIcon(sc);
+			
+			if(sc.isSoloChannel()) btnSolo.setIcon(iconSoloOn);
+			else btnSolo.setIcon(iconSoloOff);
+			
+			slVolume.setValue((int)(sc.getVolume() * 100));
+			updateVolume();
+			
+			b = sc.getEngine() != null;
+			slVolume.setEnabled(b);
+			btnSolo.setEnabled(b);
+			btnMute.setEnabled(b);
 		}
-	}
-	
-	/**
-	 * Updates the mute button with the proper icon regarding to information obtained
-	 * from <code>channel</code>.
-	 * @param channel A <code>SamplerChannel</code> instance containing the new settings
-	 * for this channel.
-	 */
-	private void
-	updateMuteIcon(SamplerChannel channel) {
-		if(channel.isMutedBySolo()) btnMute.setIcon(iconMutedBySolo);
-		else if(channel.isMuted()) btnMute.setIcon(iconMuteOn);
-		else btnMute.setIcon(iconMuteOff);
-	}
-	
-	/**
-	 * Updates the number of active disk streams.
-	 * @param count The new number of active disk streams.
-	 */
-	private void
-	updateStreamCount(int count) {
-		Dimension d = lStreams.getPreferredSize();
-		lStreams.setText(count == 0 ? "--" : String.valueOf(count));
-		d = JuifeUtils.getUnionSize(d, lStreams.getPreferredSize());
-		lStreams.setMinimumSize(d);
-		lStreams.setPreferredSize(d);
-		lStreams.setMaximumSize(d);
-	}
-	
-	/**
-	 * Updates the number of active voices.
-	 * @param count The new number of active voices.
-	 */
-	private void
-	updateVoiceCount(int count) {
-		Dimension d = lVoices.getPreferredSize();
-		lVoices.setText(count == 0 ? "--" : String.valueOf(count));
-		d = JuifeUtils.getUnionSize(d, lVoices.getPreferredSize());
-		lVoices.setMinimumSize(d);
-		lVoices.setPreferredSize(d);
-		lVoices.setMaximumSize(d);
-	}
-	
-	private void
-	showProperties(boolean show) {propertiesPane.setVisible(show); }
-	
-	private void
-	loadInstrument() {
-		JSInstrumentChooser dlg = ClassicUtils.createInstrumentChooser(SHF.getMainFrame());
-		dlg.setVisible(true);
 		
-		if(dlg.isCancelled()) return;
+		/** Invoked when the user clicks the mute button. */
+		private void
+		changeMute() {
+			SamplerChannel sc = channel.getChannelInfo();
+			boolean b = true;
+			
+			/*
+			 * Changing the mute button icon now instead of
+			 * leaving the work to the notification mechanism of the LinuxSampler.
+			 */
+			if(sc.isMuted() && !sc.isMutedBySolo()) {
+				b = false;
+				boolean hasSolo = CC.getSamplerModel().hasSoloChannel();
+				
+				if(sc.isSoloChannel() || !hasSolo) btnMute.setIcon(iconMuteOff);
+				else btnMute.setIcon(iconMutedBySolo);
+			} else btnMute.setIcon(iconMuteOn);
+			
+			channel.getModel().setBackendMute(b);
+		}
 		
-		SamplerEngine engine = getChannelInfo().getEngine();
-		if(dlg.getEngine() != null) {
-			if(engine == null || !dlg.getEngine().equals(engine.getName()));
-				getModel().setBackendEngineType(dlg.getEngine());
+		/** Invoked when the user clicks the solo button. */
+		private void
+		changeSolo() {
+			SamplerChannel sc = channel.getChannelInfo();
+			boolean b = !sc.isSoloChannel();
+			
+			/*
+			 * Changing the solo button icon (and related) now instead of
+			 * leaving the work to the notification mechanism of the LinuxSampler.
+			 */
+			if(b) {
+				btnSolo.setIcon(iconSoloOn);
+				if(sc.isMutedBySolo()) btnMute.setIcon(iconMuteOff);
+			} else {
+				btnSolo.setIcon(iconSoloOff);
+				if(!sc.isMuted() && CC.getSamplerModel().getSoloChannelCount() > 1)
+					btnMute.setIcon(iconMutedBySolo);
+			}
+			
+			channel.getModel().setBackendSolo(b);
 		}
 		
-		int idx = dlg.getInstrumentIndex();
-		getModel().loadBackendInstrument(dlg.getInstrumentFile(), idx);
+		/** Invoked when the user changes the volume */
+		private void
+		setVolume() {
+			updateVolume();
+			
+			if(slVolume.getValueIsAdjusting()) return;
+			
+			int vol = (int)(channel.getChannelInfo().getVolume() * 100);
+			
+			if(vol == slVolume.getValue()) return;
+			
+			/*
+			 * If the model's volume is not equal to the slider
+			 * value we assume that the change is due to user input.
+			 * So we must update the volume at the backend too.
+			 */
+			float volume = slVolume.getValue();
+			volume /= 100;
+			channel.getModel().setBackendVolume(volume);
+		}
+		
+		private void
+		updateVolume() {
+			int volume = slVolume.getValue();
+			
+			if(CC.getViewConfig().isMeasurementUnitDecibel()) {
+				String dB = numberFormat.format(HF.percentsToDecibels(volume));
+				slVolume.setToolTipText(i18n.getLabel("Channel.volumeDecibels", dB));
+				lVolImg.setToolTipText(i18n.getLabel("Channel.volumeDecibels", dB));
+				lVolume.setText(dB + "dB");
+			} else {
+				slVolume.setToolTipText(i18n.getLabel("Channel.volume", volume));
+				lVolImg.setToolTipText(i18n.getLabel("Channel.volume", volume));
+				lVolume.setText(String.valueOf(volume) + '%');
+			}
+		}
 		
+		/**
+		 * Updates the mute button with the proper icon regarding to information obtained
+		 * from <code>channel</code>.
+		 * @param channel A <code>SamplerChannel</code> instance containing the new settings
+		 * for this channel.
+		 */
+		private void
+		updateMuteIcon(SamplerChannel channel) {
+			if(channel.isMutedBySolo()) btnMute.setIcon(iconMutedBySolo);
+			else if(channel.isMuted()) btnMute.setIcon(iconMuteOn);
+			else btnMute.setIcon(iconMuteOff);
+		}
+		
+		/**
+		 * Updates the number of active disk streams.
+		 * @param count The new number of active disk streams.
+		 */
+		void
+		updateStreamCount(int count) {
+			String s = count == 0 ? "--" : String.valueOf(count);
+			if(s.equals(lStreams.getText())) return;
+			
+			Dimension d = lStreams.getPreferredSize();
+			lStreams.setText(s);
+			d = JuifeUtils.getUnionSize(d, lStreams.getPreferredSize());
+			lStreams.setMinimumSize(d);
+			lStreams.setPreferredSize(d);
+			lStreams.setMaximumSize(d);
+		}
+		
+		/**
+		 * Updates the number of active voices.
+		 * @param count The new number of active voices.
+		 */
+		void
+		updateVoiceCount(int count) {
+			String s = count == 0 ? "--" : String.valueOf(count);
+			if(s.equals(lVoices.getText())) return;
+			
+			Dimension d = lVoices.getPreferredSize();
+			lVoices.setText(s);
+			d = JuifeUtils.getUnionSize(d, lVoices.getPreferredSize());
+			lVoices.setMinimumSize(d);
+			lVoices.setPreferredSize(d);
+			lVoices.setMaximumSize(d);
+		}
+		
+		private void
+		loadInstrument() {
+			JSInstrumentChooser dlg = ClassicUtils.createInstrumentChooser(SHF.getMainFrame());
+			dlg.setVisible(true);
+			
+			if(dlg.isCancelled() || channel == null) return;
+			
+			SamplerEngine engine = channel.getChannelInfo().getEngine();
+			if(dlg.getEngine() != null) {
+				if(engine == null || !dlg.getEngine().equals(engine.getName()));
+					channel.getModel().setBackendEngineType(dlg.getEngine());
+			}
+			
+			int idx = dlg.getInstrumentIndex();
+			channel.getModel().loadBackendInstrument(dlg.getInstrumentFile(), idx);
+			
+		}
 	}
 }
 
@@ -915,9 +1191,18 @@ class ChannelProperties extends JPanel {
 	private MidiDeviceModel midiDevice = null;
 	
 	private boolean update = false;
+	private boolean destroyed = false;
 	
 	private final SamplerListener samplerListener;
-	private final MapListListener mapListListener = new MapListListener();
+	
+	private final ChannelComboModels.SelectionModel midiDeviceModel;
+	private final ChannelComboModels.SelectionModel audioDeviceModel;
+	private final ChannelComboModels.SelectionModel instrumentMapModel;
+	
+	private final SamplerChannelListener channelListener = new SamplerChannelAdapter() {
+		public void
+		channelChanged(SamplerChannelEvent e) { updateChannelProperties(); }
+	};
 	
 	private class NoMap {
 		public String
@@ -941,6 +1226,22 @@ class ChannelProperties extends JPanel {
 	ChannelProperties(SamplerChannelModel model) {
 		channelModel = model;
 		
+		midiDeviceModel =
+			new ChannelComboModels.SelectionModel(ChannelComboModels.getMidiDeviceList());
+		cbMidiDevice.setModel(midiDeviceModel);
+		midiDeviceModel.addListDataListener(new DeviceListListener(cbMidiDevice));
+		
+		audioDeviceModel =
+			new ChannelComboModels.SelectionModel(ChannelComboModels.getAudioDeviceList());
+		cbAudioDevice.setModel(audioDeviceModel);
+		audioDeviceModel.addListDataListener(new DeviceListListener(cbAudioDevice));
+		
+		instrumentMapModel = new ChannelComboModels.SelectionModel (
+			ChannelComboModels.getInstrumentMapList(), noMap, defaultMap
+		);
+		cbInstrumentMap.setModel(instrumentMapModel);
+		instrumentMapModel.addListDataListener(new MapListListener());
+		
 		setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
 		setOpaque(false);
 		
@@ -1002,10 +1303,7 @@ class ChannelProperties extends JPanel {
 			actionPerformed(ActionEvent e) { setAudioDevice(); }
 		});
 		
-		getModel().addSamplerChannelListener(new SamplerChannelAdapter() {
-			public void
-			channelChanged(SamplerChannelEvent e) { updateChannelProperties(); }
-		});
+		getModel().addSamplerChannelListener(channelListener);
 		
 		samplerListener = new SamplerAdapter() {
 			/** Invoked when the default MIDI instrument map is changed. */
@@ -1017,12 +1315,6 @@ class ChannelProperties extends JPanel {
 		
 		CC.getSamplerModel().addSamplerListener(samplerListener);
 		
-		cbInstrumentMap.addItem(noMap);
-		cbInstrumentMap.addItem(defaultMap);
-		for(MidiInstrumentMap map : CC.getSamplerModel().getMidiInstrumentMaps()) {
-			cbInstrumentMap.addItem(map);
-		}
-		
 		int map = getModel().getChannelInfo().getMidiInstrumentMapId();
 		cbInstrumentMap.setSelectedItem(CC.getSamplerModel().getMidiInstrumentMapById(map));
 		if(cbInstrumentMap.getSelectedItem() == null) {
@@ -1043,10 +1335,7 @@ class ChannelProperties extends JPanel {
 			actionPerformed(ActionEvent e) { updateInstrumentMap(); }
 		});
 		
-		CC.getSamplerModel().addMidiDeviceListListener(getHandler());
-		CC.getSamplerModel().addAudioDeviceListListener(getHandler());
 		CC.getSamplerModel().addSamplerChannelListListener(getHandler());
-		CC.getSamplerModel().addMidiInstrumentMapListListener(mapListListener);
 		
 		btnAudioProps.setToolTipText(i18n.getLabel("ChannelProperties.routing"));
 		btnAudioProps.setEnabled(false);
@@ -1252,6 +1541,7 @@ class ChannelProperties extends JPanel {
 	private void
 	updateInstrumentMap() {
 		updateCbInstrumentMapToolTipText();
+		if(isUpdate()) return;
 		
 		int id = getModel().getChannelInfo().getMidiInstrumentMapId();
 		Object o = cbInstrumentMap.getSelectedItem();
@@ -1330,7 +1620,8 @@ class ChannelProperties extends JPanel {
 	}
 	
 	/**
-	 * Updates the MIDI device list.
+	 * Selects the current MIDI input device of the channel.
+	 * The MIDI device list itself is shared by all channels.
 	 */
 	private void
 	updateMidiDevices() {
@@ -1340,11 +1631,6 @@ class ChannelProperties extends JPanel {
 		setUpdate(true);
 		
 		try {
-			cbMidiDevice.removeAllItems();
-		
-			for(MidiDeviceModel m : sm.getMidiDevices())
-				cbMidiDevice.addItem(m.getDeviceInfo());
-		
 			MidiDeviceModel mm = sm.getMidiDeviceById(sc.getMidiInputDevice());
 			cbMidiDevice.setSelectedItem(mm == null ? null : mm.getDeviceInfo());
 		} catch(Exception x) {
@@ -1355,7 +1641,8 @@ class ChannelProperties extends JPanel {
 	}
 	
 	/**
-	 * Updates the audio device list.
+	 * Selects the current audio output device of the channel.
+	 * The audio device list itself is shared by all channels.
 	 */
 	private void
 	updateAudioDevices() {
@@ -1365,11 +1652,6 @@ class ChannelProperties extends JPanel {
 		setUpdate(true);
 		
 		try {
-			cbAudioDevice.removeAllItems();
-		
-			for(AudioDeviceModel m : sm.getAudioDevices()) 
-				cbAudioDevice.addItem(m.getDeviceInfo());
-		
 			AudioDeviceModel am = sm.getAudioDeviceById(sc.getAudioOutputDevice());
 			cbAudioDevice.setSelectedItem(am == null ? null : am.getDeviceInfo());
 		} catch(Exception x) {
@@ -1477,16 +1759,53 @@ class ChannelProperties extends JPanel {
 	private void
 	setUpdate(boolean b) { update = b; }
 	
+	/**
+	 * Clears the selection of the specified combo box if the selected item
+	 * was removed from the list. The change is made in update mode,
+	 * so the back-end settings of the channel are not changed.
+	 */
+	private void
+	clearRemovedSelection(JComboBox cb) {
+		Object o = cb.getSelectedItem();
+		if(o == null) return;
+		
+		ComboBoxModel m = cb.getModel();
+		for(int i = 0; i < m.getSize(); i++) if(o.equals(m.getElementAt(i))) return;
+		
+		boolean b = isUpdate();
+		setUpdate(true);
+		try { cb.setSelectedItem(null); }
+		finally { setUpdate(b); }
+		
+		if(cb == cbAudioDevice) btnAudioProps.setEnabled(false);
+	}
+	
+	/**
+	 * Determines whether this pane is destroyed and no longer
+	 * listens for changes in the channel and the sampler.
+	 */
+	boolean
+	isDestroyed() { return destroyed; }
+	
+	/**
+	 * Stops listening for changes in the channel and the sampler.
+	 * Invoking this method more than once has no effect.
+	 */
 	protected void
 	onDestroy() {
+		if(destroyed) return;
+		destroyed = true;
+		
 		SamplerModel sm = CC.getSamplerModel();
 		
-		sm.removeMidiDeviceListListener(getHandler());
-		sm.removeAudioDeviceListListener(getHandler());
-		sm.removeMidiInstrumentMapListListener(mapListListener);
+		getModel().removeSamplerChannelListener(channelListener);
 		sm.removeSamplerListener(samplerListener);
 		sm.removeSamplerChannelListListener(getHandler());
 		
+		midiDeviceModel.dispose();
+		audioDeviceModel.dispose();
+		instrumentMapModel.dispose();
+		
 		if(midiDevice != null) {
 			midiDevice.removeMidiDeviceListener(getHandler());
 		}
@@ -1499,49 +1818,7 @@ class ChannelProperties extends JPanel {
 	private Handler
 	getHandler() { return handler; }
 	
-	private class Handler implements MidiDeviceListListener, ListListener<AudioDeviceModel>,
-					SamplerChannelListListener, MidiDeviceListener {
-		
-		/**
-		 * Invoked when a new MIDI device is created.
-		 * @param e A <code>MidiDeviceListEvent</code>
-		 * instance providing the event information.
-		 */
-		public void
-		deviceAdded(MidiDeviceListEvent e) {
-			cbMidiDevice.addItem(e.getMidiDeviceModel().getDeviceInfo());
-		}
-	
-		/**
-		 * Invoked when a MIDI device is removed.
-		 * @param e A <code>MidiDeviceListEvent</code>
-		 * instance providing the event information.
-		 */
-		public void
-		deviceRemoved(MidiDeviceListEvent e) {
-			cbMidiDevice.removeItem(e.getMidiDeviceModel().getDeviceInfo());
-		}
-		
-		/**
-		 * Invoked when a new audio device is created.
-		 * @param e An <code>AudioDeviceListEvent</code>
-		 * instance providing the event information.
-		 */
-		public void
-		entryAdded(ListEvent<AudioDeviceModel> e) {
-			cbAudioDevice.addItem(e.getEntry().getDeviceInfo());
-		}
-	
-		/**
-		 * Invoked when an audio device is removed.
-		 * @param e An <code>AudioDeviceListEvent</code>
-		 * instance providing the event information.
-		 */
-		public void
-		entryRemoved(ListEvent<AudioDeviceModel> e) {
-			cbAudioDevice.removeItem(e.getEntry().getDeviceInfo());
-		}
-		
+	private class Handler implements SamplerChannelListListener, MidiDeviceListener {
 		/**
 		 * Invoked when a new sampler channel is created.
 		 * @param e A <code>SamplerChannelListEvent</code>
@@ -1585,23 +1862,46 @@ class ChannelProperties extends JPanel {
 		}
 	}
 	
-	private class MapListListener implements ListListener<MidiInstrumentMap> {
-		/** Invoked when a new MIDI instrument map is added to a list. */
+	private class DeviceListListener implements ListDataListener {
+		private final JComboBox cb;
+		
+		DeviceListListener(JComboBox cb) { this.cb = cb; }
+		
+		/** Invoked when new devices are added to the list. */
+		public void
+		intervalAdded(ListDataEvent e) { }
+		
+		/** Invoked when devices are removed from the list. */
+		public void
+		intervalRemoved(ListDataEvent e) { clearRemovedSelection(cb); }
+		
+		public void
+		contentsChanged(ListDataEvent e) { }
+	}
+	
+	private class MapListListener implements ListDataListener {
+		/** Invoked when new MIDI instrument maps are added to the list. */
 		public void
-		entryAdded(ListEvent<MidiInstrumentMap> e) {
-			cbInstrumentMap.insertItemAt(e.getEntry(), cbInstrumentMap.getItemCount());
+		intervalAdded(ListDataEvent e) {
 			boolean b = getModel().getChannelInfo().getEngine() != null;
 			if(b && !cbInstrumentMap.isEnabled()) cbInstrumentMap.setEnabled(true);
 		}
-	
-		/** Invoked when a new MIDI instrument map is removed from a list. */
+		
+		/** Invoked when MIDI instrument maps are removed from the list. */
 		public void
-		entryRemoved(ListEvent<MidiInstrumentMap> e) {
-			cbInstrumentMap.removeItem(e.getEntry());
-			if(cbInstrumentMap.getItemCount() == 0) {
+		intervalRemoved(ListDataEvent e) {
+			clearRemovedSelection(cbInstrumentMap);
+			
+			if(ChannelComboModels.getInstrumentMapList().getSize() == 0) {
+				boolean b = isUpdate();
+				setUpdate(true);
 				cbInstrumentMap.setSelectedItem(noMap);
+				setUpdate(b);
 				cbInstrumentMap.setEnabled(false);
 			}
 		}
+		
+		public void
+		contentsChanged(ListDataEvent e) { }
 	}
 }
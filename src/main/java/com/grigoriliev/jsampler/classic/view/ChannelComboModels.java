@@ -0,0 +1,328 @@
+/*
+ *   JSampler - a front-end for LinuxSampler
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of JSampler.
+ *
+ *   JSampler is free software: you can redistribute it and/or modify it under
+ *   the terms of the GNU General Public License as published by the Free
+ *   Software Foundation, either version 3 of the License, or (at your option)
+ *   any later version.
+ *
+ *   JSampler is distributed in the hope that it will be useful, but WITHOUT
+ *   ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *   FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ *   more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with JSampler. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.grigoriliev.jsampler.classic.view;
+
+import java.util.Vector;
+
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+
+import com.grigoriliev.jsampler.AudioDeviceModel;
+import com.grigoriliev.jsampler.CC;
+import com.grigoriliev.jsampler.MidiDeviceModel;
+import com.grigoriliev.jsampler.MidiInstrumentMap;
+import com.grigoriliev.jsampler.SamplerModel;
+
+import com.grigoriliev.jsampler.event.ListEvent;
+import com.grigoriliev.jsampler.event.ListListener;
+import com.grigoriliev.jsampler.event.MidiDeviceListEvent;
+import com.grigoriliev.jsampler.event.MidiDeviceListListener;
+
+
+/**
+ * Provides the lists of MIDI input devices, audio output devices and MIDI instrument
+ * maps shared by all channel property panes. Each list is kept in a single
+ * {@link SharedListModel}, which is updated once per device/map list change,
+ * while each combo box uses its own {@link SelectionModel} that only holds
+ * the selected item.
+ * @author Grigor Iliev
+ */
+class ChannelComboModels {
+	private static SharedListModel midiDevices = null;
+	private static SharedListModel audioDevices = null;
+	private static SharedListModel instrumentMaps = null;
+	
+	/** Forbids the instantiation of this class. */
+	private
+	ChannelComboModels() { }
+	
+	/**
+	 * Gets the shared list with the <code>MidiInputDevice</code>
+	 * instances of the current MIDI input devices.
+	 */
+	public static SharedListModel
+	getMidiDeviceList() {
+		if(midiDevices == null) init();
+		return midiDevices;
+	}
+	
+	/**
+	 * Gets the shared list with the <code>AudioOutputDevice</code>
+	 * instances of the current audio output devices.
+	 */
+	public static SharedListModel
+	getAudioDeviceList() {
+		if(audioDevices == null) init();
+		return audioDevices;
+	}
+	
+	/** Gets the shared list with the current MIDI instrument maps. */
+	public static SharedListModel
+	getInstrumentMapList() {
+		if(instrumentMaps == null) init();
+		return instrumentMaps;
+	}
+	
+	private static void
+	init() {
+		SamplerModel sm = CC.getSamplerModel();
+		
+		Vector<Object> v = new Vector<Object>();
+		for(MidiDeviceModel m : sm.getMidiDevices()) v.add(m.getDeviceInfo());
+		midiDevices = new SharedListModel(v.toArray());
+		
+		v.clear();
+		for(AudioDeviceModel m : sm.getAudioDevices()) v.add(m.getDeviceInfo());
+		audioDevices = new SharedListModel(v.toArray());
+		
+		v.clear();
+		for(MidiInstrumentMap m : sm.getMidiInstrumentMaps()) v.add(m);
+		instrumentMaps = new SharedListModel(v.toArray());
+		
+		Handler handler = new Handler();
+		sm.addMidiDeviceListListener(handler);
+		sm.addAudioDeviceListListener(handler);
+		sm.addMidiInstrumentMapListListener(new MapListListener());
+	}
+	
+	private static class Handler implements MidiDeviceListListener,
+							ListListener<AudioDeviceModel> {
+		/**
+		 * Invoked when a new MIDI device is created.
+		 * @param e A <code>MidiDeviceListEvent</code>
+		 * instance providing the event information.
+		 */
+		@Override
+		public void
+		deviceAdded(MidiDeviceListEvent e) {
+			midiDevices.addItem(e.getMidiDeviceModel().getDeviceInfo());
+		}
+		
+		/**
+		 * Invoked when a MIDI device is removed.
+		 * @param e A <code>MidiDeviceListEvent</code>
+		 * instance providing the event information.
+		 */
+		@Override
+		public void
+		deviceRemoved(MidiDeviceListEvent e) {
+			midiDevices.removeItem(e.getMidiDeviceModel().getDeviceInfo());
+		}
+		
+		/** Invoked when a new audio device is created. */
+		@Override
+		public void
+		entryAdded(ListEvent<AudioDeviceModel> e) {
+			audioDevices.addItem(e.getEntry().getDeviceInfo());
+		}
+		
+		/** Invoked when an audio device is removed. */
+		@Override
+		public void
+		entryRemoved(ListEvent<AudioDeviceModel> e) {
+			audioDevices.removeItem(e.getEntry().getDeviceInfo());
+		}
+	}
+	
+	private static class MapListListener implements ListListener<MidiInstrumentMap> {
+		/** Invoked when a new MIDI instrument map is added to a list. */
+		@Override
+		public void
+		entryAdded(ListEvent<MidiInstrumentMap> e) { instrumentMaps.addItem(e.getEntry()); }
+		
+		/** Invoked when a new MIDI instrument map is removed from a list. */
+		@Override
+		public void
+		entryRemoved(ListEvent<MidiInstrumentMap> e) {
+			instrumentMaps.removeItem(e.getEntry());
+		}
+	}
+	
+	/**
+	 * A list model backed by an immutable array snapshot. Each change
+	 * replaces the snapshot and notifies the listeners only about the
+	 * range that actually differs from the previous snapshot.
+	 */
+	static class SharedListModel extends AbstractListModel<Object> {
+		private Object[] items;
+		
+		SharedListModel(Object[] items) { this.items = items.clone(); }
+		
+		@Override
+		public int
+		getSize() { return items.length; }
+		
+		@Override
+		public Object
+		getElementAt(int index) { return items[index]; }
+		
+		/**
+		 * Determines whether this list contains the specified item.
+		 */
+		public boolean
+		contains(Object item) { return indexOf(item) != -1; }
+		
+		private int
+		indexOf(Object item) {
+			if(item == null) return -1;
+			for(int i = 0; i < items.length; i++) if(item.equals(items[i])) return i;
+			return -1;
+		}
+		
+		/** Appends the specified item, if it is not already in the list. */
+		public void
+		addItem(Object item) {
+			if(contains(item)) return;
+			
+			Object[] newItems = new Object[items.length + 1];
+			System.arraycopy(items, 0, newItems, 0, items.length);
+			newItems[items.length] = item;
+			setItems(newItems);
+		}
+		
+		/** Removes the specified item from the list. */
+		public void
+		removeItem(Object item) {
+			int idx = indexOf(item);
+			if(idx == -1) return;
+			
+			Object[] newItems = new Object[items.length - 1];
+			System.arraycopy(items, 0, newItems, 0, idx);
+			System.arraycopy(items, idx + 1, newItems, idx, newItems.length - idx);
+			setItems(newItems);
+		}
+		
+		/**
+		 * Replaces the current snapshot with the specified one. The listeners
+		 * are notified with at most one removal and one insertion event.
+		 */
+		public void
+		setItems(Object[] newItems) {
+			Object[] oldItems = items;
+			
+			int prefix = 0;
+			while (
+				prefix < oldItems.length && prefix < newItems.length &&
+				oldItems[prefix].equals(newItems[prefix])
+			) prefix++;
+			
+			int suffix = 0;
+			while (
+				suffix < oldItems.length - prefix && suffix < newItems.length - prefix &&
+				oldItems[oldItems.length - 1 - suffix].equals (
+					newItems[newItems.length - 1 - suffix]
+				)
+			) suffix++;
+			
+			int removed = oldItems.length - prefix - suffix;
+			int added = newItems.length - prefix - suffix;
+			
+			if(removed > 0) {
+				Object[] tmp = new Object[oldItems.length - removed];
+				System.arraycopy(oldItems, 0, tmp, 0, prefix);
+				System.arraycopy(oldItems, prefix + removed, tmp, prefix, suffix);
+				items = tmp;
+				fireIntervalRemoved(this, prefix, prefix + removed - 1);
+			}
+			
+			items = newItems.clone();
+			if(added > 0) fireIntervalAdded(this, prefix, prefix + added - 1);
+		}
+	}
+	
+	/**
+	 * A combo box model that shows the items of a shared list, optionally
+	 * preceded by fixed items, and keeps its own selection. The selection is
+	 * never changed by the model itself, even when the selected item is removed
+	 * from the shared list, so that the owner can handle this on its own.
+	 * {@link #dispose} should be called when the model is no longer needed.
+	 */
+	static class SelectionModel extends AbstractListModel<Object>
+					implements ComboBoxModel<Object>, ListDataListener {
+		private final SharedListModel list;
+		private final Object[] fixedItems;
+		private Object selectedItem = null;
+		
+		/**
+		 * Creates a new instance of <code>SelectionModel</code>.
+		 * @param list The shared list.
+		 * @param fixedItems The items to be shown before the items of the shared list.
+		 */
+		SelectionModel(SharedListModel list, Object... fixedItems) {
+			this.list = list;
+			this.fixedItems = fixedItems;
+			list.addListDataListener(this);
+		}
+		
+		/** Stops observing the shared list. */
+		public void
+		dispose() { list.removeListDataListener(this); }
+		
+		@Override
+		public int
+		getSize() { return fixedItems.length + list.getSize(); }
+		
+		@Override
+		public Object
+		getElementAt(int index) {
+			if(index < fixedItems.length) return fixedItems[index];
+			return list.getElementAt(index - fixedItems.length);
+		}
+		
+		@Override
+		public Object
+		getSelectedItem() { return selectedItem; }
+		
+		@Override
+		public void
+		setSelectedItem(Object item) {
+			if(selectedItem == null ? item == null : selectedItem.equals(item)) return;
+			
+			selectedItem = item;
+			fireContentsChanged(this, -1, -1);
+		}
+		
+		@Override
+		public void
+		intervalAdded(ListDataEvent e) {
+			int i = fixedItems.length;
+			fireIntervalAdded(this, e.getIndex0() + i, e.getIndex1() + i);
+		}
+		
+		@Override
+		public void
+		intervalRemoved(ListDataEvent e) {
+			int i = fixedItems.length;
+			fireIntervalRemoved(this, e.getIndex0() + i, e.getIndex1() + i);
+		}
+		
+		@Override
+		public void
+		contentsChanged(ListDataEvent e) {
+			int i = fixedItems.length;
+			fireContentsChanged(this, e.getIndex0() + i, e.getIndex1() + i);
+		}
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ *   JSampler - a front-end for LinuxSampler
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of JSampler.
+ *
+ *   JSampler is free software: you can redistribute it and/or modify it under
+ *   the terms of the GNU General Public License as published by the Free
+ *   Software Foundation, either version 3 of the License, or (at your option)
+ *   any later version.
+ *
+ *   JSampler is distributed in the hope that it will be useful, but WITHOUT
+ *   ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *   FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ *   more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with JSampler. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.grigoriliev.jsampler.classic.view;
+
+import java.util.Vector;
+
+import java.util.logging.Level;
+
+import com.grigoriliev.jsampler.CC;
+
+import com.grigoriliev.jsampler.jlscp.Client;
+
+import com.grigoriliev.jsampler.task.EnhancedTask;
+
+import static com.grigoriliev.jsampler.classic.view.ClassicI18n.i18n;
+
+
+/**
+ * Sets up several sampler channels with a single task, creating the missing
+ * channels. All back-end commands are issued one right after another by this
+ * task, instead of queuing a separate task for each command, so the task queue
+ * and the event-dispatching thread are not involved in between. The instruments
+ * are loaded in the background by the sampler. The result is the IDs of the
+ * channels, in the order in which they are added to this task. If a command
+ * fails, the channels created by this task are removed and the task ends with
+ * a single error. The changes made to existing channels are not reverted.
+ * @author Grigor Iliev
+ */
+class ChannelSetupTask extends EnhancedTask<Integer[]> {
+	private final Vector<Setup> setups = new Vector<Setup>();
+	
+	/** Creates a new instance of <code>ChannelSetupTask</code>. */
+	ChannelSetupTask() {
+		setTitle("ChannelSetupTask_task");
+		setDescription(i18n.getMessage("ChannelSetupTask.desc"));
+	}
+	
+	/**
+	 * Adds a channel to be set up by this task.
+	 * @param channelId The ID of the channel, or -1 to create a new channel.
+	 * @return The settings to be applied to the channel.
+	 */
+	public Setup
+	addChannel(int channelId) {
+		Setup s = new Setup(channelId);
+		setups.add(s);
+		return s;
+	}
+	
+	/** Gets the number of channels to be set up by this task. */
+	public int
+	getChannelCount() { return setups.size(); }
+	
+	@Override
+	public void
+	exec() throws Exception {
+		long time = System.nanoTime();
+		
+		Vector<Integer> created = new Vector<Integer>();
+		Integer[] ids = new Integer[setups.size()];
+		try {
+			for(int i = 0; i < setups.size(); i++) ids[i] = setup(setups.get(i), created);
+		} catch(Exception x) {
+			rollback(created);
+			throw x;
+		}
+		
+		time = (System.nanoTime() - time) / 1000000;
+		CC.getLogger().fine("Set up " + ids.length + " channels in " + time + "ms");
+		
+		setResult(ids);
+	}
+	
+	private int
+	setup(Setup s, Vector<Integer> created) throws Exception {
+		Client client = CC.getClient();
+		
+		int chn = s.channelId;
+		if(chn == -1) {
+			chn = client.addSamplerChannel();
+			created.add(chn);
+		}
+		
+		if(s.engine != null) client.loadSamplerEngine(s.engine, chn);
+		if(s.audioDevice != -1) client.setChannelAudioOutputDevice(chn, s.audioDevice);
+		if(s.midiDevice != -1) client.setChannelMidiInputDevice(chn, s.midiDevice);
+		if(s.midiPort != -1) client.setChannelMidiInputPort(chn, s.midiPort);
+		if(s.midiChannel != null) client.setChannelMidiInputChannel(chn, s.midiChannel);
+		
+		if(s.instrumentFile != null) {
+			client.loadInstrument(s.instrumentFile, s.instrumentIndex, chn, true);
+		}
+		
+		return chn;
+	}
+	
+	/** Removes the specified channels, which were created by this task. */
+	private void
+	rollback(Vector<Integer> created) {
+		for(int chn : created) {
+			try { CC.getClient().removeSamplerChannel(chn); }
+			catch(Exception x) {
+				CC.getLogger().log(Level.INFO, "Failed to remove channel " + chn, x);
+			}
+		}
+	}
+	
+	/**
+	 * The settings to be applied to a sampler channel.
+	 * The settings which are not specified are left unchanged.
+	 */
+	static class Setup {
+		/** The ID of the channel, or -1 if a new channel should be created. */
+		final int channelId;
+		
+		/** The name of the engine to load, or <code>null</code>. */
+		String engine = null;
+		
+		/** The ID of the audio output device, or -1. */
+		int audioDevice = -1;
+		
+		/** The ID of the MIDI input device, or -1. */
+		int midiDevice = -1;
+		
+		/** The index of the MIDI input port, or -1. */
+		int midiPort = -1;
+		
+		/** The MIDI channel, -1 for all channels, or <code>null</code>. */
+		Integer midiChannel = null;
+		
+		/** The instrument file to load, or <code>null</code>. */
+		String instrumentFile = null;
+		
+		/** The index of the instrument in the instrument file. */
+		int instrumentIndex = 0;
+		
+		Setup(int channelId) { this.channelId = channelId; }
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ *   JSampler - a front-end for LinuxSampler
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of JSampler.
+ *
+ *   JSampler is free software: you can redistribute it and/or modify it under
+ *   the terms of the GNU General Public License as published by the Free
+ *   Software Foundation, either version 3 of the License, or (at your option)
+ *   any later version.
+ *
+ *   JSampler is distributed in the hope that it will be useful, but WITHOUT
+ *   ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *   FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ *   more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with JSampler. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.grigoriliev.jsampler.classic.view;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+import java.util.LinkedHashSet;
+
+import javax.swing.Timer;
+
+
+/**
+ * Coalesces the voice and stream count updates of the channels in a channels pane.
+ * Instead of updating the channel's counters on every event received from the
+ * back-end, the channels are marked as dirty and are flushed at most once
+ * per frame. The frame rate is obtained from
+ * {@link ClassicPrefs#getChannelRefreshRate}. The timer is running only while
+ * there are pending updates. All methods should be invoked on the
+ * event-dispatching thread.
+ * @author Grigor Iliev
+ */
+class ChannelUpdateScheduler implements ActionListener {
+	private final LinkedHashSet<Channel> dirtyChannels = new LinkedHashSet<Channel>();
+	private final Timer timer = new Timer(0, this);
+	
+	/** Creates a new instance of <code>ChannelUpdateScheduler</code>. */
+	ChannelUpdateScheduler() {
+		timer.setCoalesce(true);
+		timer.setRepeats(false);
+	}
+	
+	/**
+	 * Marks the specified channel as dirty. The channel counters
+	 * will be updated on the next frame.
+	 * @param channel The channel whose counters should be updated.
+	 */
+	public void
+	markDirty(Channel channel) {
+		if(!dirtyChannels.add(channel)) return;
+		if(timer.isRunning()) return;
+		
+		timer.setInitialDelay(1000 / ClassicPrefs.getChannelRefreshRate());
+		timer.start();
+	}
+	
+	/**
+	 * Discards the pending updates of the specified channel.
+	 * @param channel The channel whose pending updates should be discarded.
+	 */
+	public void
+	cancel(Channel channel) {
+		dirtyChannels.remove(channel);
+		if(dirtyChannels.isEmpty()) timer.stop();
+	}
+	
+	/** Updates the counters of all dirty channels. */
+	public void
+	flush() {
+		timer.stop();
+		if(dirtyChannels.isEmpty()) return;
+		
+		Channel[] chns = dirtyChannels.toArray(new Channel[dirtyChannels.size()]);
+		dirtyChannels.clear();
+		for(Channel c : chns) c.updateCounters();
+	}
+	
+	/**
+	 * Stops the scheduler and discards all pending updates. The scheduler
+	 * starts again if a channel is marked dirty after it is disposed.
+	 */
+	public void
+	dispose() {
+		timer.stop();
+		dirtyChannels.clear();
+	}
+	
+	/** Invoked when the current frame has elapsed. */
+	@Override
+	public void
+	actionPerformed(ActionEvent e) { flush(); }
+}
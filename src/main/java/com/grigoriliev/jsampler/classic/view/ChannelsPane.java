@@ -28,6 +28,8 @@ import java.awt.Rectangle;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Vector;
 
 import javax.swing.BorderFactory;
@@ -36,7 +38,10 @@ import javax.swing.JMenuItem;
 import javax.swing.JPopupMenu;
 import javax.swing.JScrollPane;
 import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
 
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 
@@ -64,6 +69,31 @@ public class ChannelsPane extends SwingChannelsPane<Channel> implements ListSele
 	private final DefaultComponentListModel listModel = new DefaultComponentListModel();
 	
 	private final JScrollPane scrollPane;
+	
+	private final ChannelUpdateScheduler updateScheduler = new ChannelUpdateScheduler();
+	
+	/**
+	 * Determines whether only the channels in the visible part
+	 * of the channel list have channel strips attached.
+	 */
+	private final boolean virtualized = ClassicPrefs.getVirtualChannelList();
+	private final Vector<Channel.ChannelStrip> stripPool = new Vector<Channel.ChannelStrip>();
+	
+	/** The channels which have channel strips attached, when the list is virtualized. */
+	private final HashSet<Channel> stripChannels = new HashSet<Channel>();
+	private boolean visibleChannelsUpdatePending = false;
+	
+	/**
+	 * The channels added while the automatic update of the channel list
+	 * was disabled, which should be selected on the next UI update.
+	 */
+	private final Vector<Channel> pendingChannels = new Vector<Channel>();
+	
+	/**
+	 * Determines whether a channel list UI update is scheduled
+	 * for the channels added while the automatic update was enabled.
+	 */
+	private boolean channelListUpdatePending = false;
 		
 	/**
 	 * Creates a new instance of <code>ChannelsPane</code> with
@@ -88,6 +118,13 @@ public class ChannelsPane extends SwingChannelsPane<Channel> implements ListSele
 		scrollPane.setBorder(BorderFactory.createEmptyBorder());
 		add(scrollPane);
 		
+		if(virtualized) {
+			scrollPane.getViewport().addChangeListener(new ChangeListener() {
+				public void
+				stateChanged(ChangeEvent e) { scheduleVisibleChannelsUpdate(); }
+			});
+		}
+		
 		setBorder(BorderFactory.createEmptyBorder(3, 3, 3, 3));
 		
 	}
@@ -99,23 +136,51 @@ public class ChannelsPane extends SwingChannelsPane<Channel> implements ListSele
 	}
 	
 	/**
-	 * Adds new channel to this channels pane.
+	 * Adds new channel to this channels pane. This method is invoked for
+	 * each sampler channel added in the back-end, so the channels restored
+	 * on reconnect or when a session is loaded arrive one by one. The channel
+	 * list UI is therefore not updated here, but once for all channels added
+	 * during the same event dispatch, the same way as when the automatic
+	 * update is disabled and <code>updateChannelListUI</code> is invoked.
 	 * @param channelModel The sampler channel model to be used by the new channel.
 	 */
 	@Override
 	public void
 	addChannel(SamplerChannelModel channelModel) {
-		Channel channel = new Channel(channelModel);
+		Channel channel = createChannel(channelModel);
+		
+		boolean autoUpdate = getAutoUpdate();
+		setAutoUpdate(false);
 		listModel.add(channel);
-		if(channel.getChannelInfo().getEngine() == null) channel.expandChannel();
-		chnList.setSelectedComponent(channel, true);
-		scrollToBottom();
+		setAutoUpdate(autoUpdate);
+		
+		pendingChannels.add(channel);
+		if(autoUpdate) scheduleChannelListUpdate();
 		
 		firePropertyChange("channelAdded", null, channelModel);
 	}
 	
+	private void
+	scheduleChannelListUpdate() {
+		if(channelListUpdatePending) return;
+		channelListUpdatePending = true;
+		
+		SwingUtilities.invokeLater(new Runnable() {
+			public void
+			run() {
+				channelListUpdatePending = false;
+				// the caller which disabled the automatic update
+				// is responsible for updating the channel list UI
+				if(getAutoUpdate()) updateChannelListUI();
+			}
+		});
+	}
+	
 	/**
 	 * Adds the specified channels to this channels pane.
+	 * The automatic update of the channel list UI is suspended while
+	 * the channels are added, so that the channel list is laid out
+	 * and the selection is changed only once.
 	 * @param chns The channels to be added.
 	 */
 	@Override
@@ -123,15 +188,45 @@ public class ChannelsPane extends SwingChannelsPane<Channel> implements ListSele
 	addChannels(Channel[] chns) {
 		if(chns == null || chns.length == 0) return;
 		
-		for(Channel c : chns) listModel.add(c);
-		chnList.setSelectionInterval (
-			listModel.getSize() - chns.length, listModel.getSize() - 1
-		);
+		boolean autoUpdate = getAutoUpdate();
+		setAutoUpdate(false);
 		
-		chnList.ensureIndexIsVisible(listModel.getSize() - 1);
+		for(Channel c : chns) {
+			c.setUpdateScheduler(updateScheduler);
+			if(!virtualized && !c.isMaterialized()) c.materialize(new Channel.ChannelStrip());
+			// channels moved from another pane may still have their strips
+			if(virtualized && c.isMaterialized()) stripChannels.add(c);
+			listModel.add(c);
+		}
+		
+		setAutoUpdate(autoUpdate);
+		
+		if(autoUpdate) {
+			chnList.updateList();
+			chnList.setSelectionInterval (
+				listModel.getSize() - chns.length, listModel.getSize() - 1
+			);
+			
+			chnList.ensureIndexIsVisible(listModel.getSize() - 1);
+			scheduleVisibleChannelsUpdate();
+		} else {
+			for(Channel c : chns) pendingChannels.add(c);
+		}
 		
 		firePropertyChange("channelsAdded", null, chns);
 	}
+	
+	/**
+	 * Creates a new channel for the specified sampler channel model.
+	 * The channel is expanded if no engine is loaded.
+	 */
+	private Channel
+	createChannel(SamplerChannelModel channelModel) {
+		Channel channel = new Channel(channelModel, !virtualized);
+		channel.setUpdateScheduler(updateScheduler);
+		if(channel.getChannelInfo().getEngine() == null) channel.expandChannel();
+		return channel;
+	}
 		
 	/**
 	 * Removes the specified channel from this channels pane.
@@ -142,6 +237,8 @@ public class ChannelsPane extends SwingChannelsPane<Channel> implements ListSele
 	public void
 	removeChannel(Channel chn) {
 		listModel.remove(chn);
+		pendingChannels.remove(chn);
+		releaseChannel(chn);
 		
 		firePropertyChange("channelRemoved", null, chn);
 	}
@@ -241,6 +338,7 @@ public class ChannelsPane extends SwingChannelsPane<Channel> implements ListSele
 		for(;;) {
 			int i = chnList.getMinSelectionIndex();
 			if(i == -1) break;
+			releaseChannel((Channel)listModel.get(i));
 			model.remove(i);
 		}
 		
@@ -325,12 +423,34 @@ public class ChannelsPane extends SwingChannelsPane<Channel> implements ListSele
 	setAutoUpdate(boolean b) { chnList.setAutoUpdate(b); }
 	
 	/**
-	 * Updates the channel list UI.
+	 * Updates the channel list UI. The channels added while the automatic
+	 * update was disabled are selected and the list is scrolled to the last one.
 	 * @see setAutoUpdate
 	 */
 	@Override
 	public void
-	updateChannelListUI() { chnList.updateList(); }
+	updateChannelListUI() {
+		chnList.updateList();
+		
+		if(pendingChannels.isEmpty()) return;
+		
+		HashSet<Channel> pending = new HashSet<Channel>(pendingChannels);
+		pendingChannels.clear();
+		
+		int[] si = new int[pending.size()];
+		int j = 0;
+		for(int i = 0; i < listModel.size() && j < si.length; i++) {
+			if(pending.contains(listModel.get(i))) si[j++] = i;
+		}
+		
+		if(j == 0) return;
+		
+		int[] indices = new int[j];
+		System.arraycopy(si, 0, indices, 0, j);
+		chnList.setSelectedIndices(indices);
+		chnList.ensureIndexIsVisible(indices[j - 1]);
+		scheduleVisibleChannelsUpdate();
+	}
 	
 		
 	@Override
@@ -419,10 +539,115 @@ public class ChannelsPane extends SwingChannelsPane<Channel> implements ListSele
 		firePropertyChange("channelsPositionChanged", null, chns);
 	}
 	
+	/**
+	 * Gets the scheduler used to coalesce the voice and
+	 * stream count updates of the channels in this pane.
+	 */
+	ChannelUpdateScheduler
+	getUpdateScheduler() { return updateScheduler; }
+	
+	/**
+	 * Detaches the specified channel from the update scheduler of this pane,
+	 * unless the channel is already moved to another channels pane.
+	 */
+	private void
+	releaseChannel(Channel chn) {
+		if(chn.getUpdateScheduler() == updateScheduler) chn.setUpdateScheduler(null);
+		if(virtualized && chn.isMaterialized()) stripPool.add(chn.dematerialize());
+		stripChannels.remove(chn);
+	}
+	
+	/**
+	 * Schedules an update of the channel strips after the pending
+	 * layout and scroll changes are processed. Multiple requests
+	 * made before the update is performed are coalesced.
+	 */
+	private void
+	scheduleVisibleChannelsUpdate() {
+		if(!virtualized || visibleChannelsUpdatePending) return;
+		visibleChannelsUpdatePending = true;
+		
+		SwingUtilities.invokeLater(new Runnable() {
+			public void
+			run() {
+				visibleChannelsUpdatePending = false;
+				updateVisibleChannels();
+			}
+		});
+	}
+	
+	/**
+	 * Attaches channel strips to the channels in the visible part of the channel
+	 * list (plus one screen above and below) and detaches the channel strips
+	 * from the other channels, so that the number of channel strips is proportional
+	 * to the size of the viewport and not to the number of channels.
+	 * The detached strips are kept in a pool and reused. Expanded channels
+	 * keep their strips. The first visible channel is found by a binary search
+	 * on the channel positions, since the expanded channels are taller than the
+	 * others, so the cost depends on the number of visible channels only.
+	 */
 	private void
-	scrollToBottom() {
-		int h = scrollPane.getViewport().getView().getHeight();
-		scrollPane.getViewport().scrollRectToVisible(new Rectangle(0, h - 2, 1, 1));
+	updateVisibleChannels() {
+		Rectangle r = chnList.getVisibleRect();
+		r.y -= r.height;
+		r.height *= 3;
+		
+		boolean b = false;
+		HashSet<Channel> visible = new HashSet<Channel>();
+		for(int i = findFirstChannel(r.y); i < listModel.size(); i++) {
+			Channel c = (Channel)listModel.get(i);
+			Rectangle cr = getChannelBounds(c);
+			
+			if(!cr.intersects(r)) {
+				if(cr.y >= r.y + r.height) break;
+				continue;
+			}
+			
+			visible.add(c);
+			if(c.isMaterialized()) continue;
+			
+			if(stripPool.isEmpty()) c.materialize(new Channel.ChannelStrip());
+			else c.materialize(stripPool.remove(stripPool.size() - 1));
+			stripChannels.add(c);
+			b = true;
+		}
+		
+		Iterator<Channel> it = stripChannels.iterator();
+		while(it.hasNext()) {
+			Channel c = it.next();
+			if(visible.contains(c) || c.isExpanded()) continue;
+			
+			it.remove();
+			if(c.isMaterialized()) stripPool.add(c.dematerialize());
+			b = true;
+		}
+		
+		if(b) chnList.revalidate();
+	}
+	
+	/**
+	 * Finds the index of the first channel whose bottom edge is below
+	 * the specified vertical position in the channel list.
+	 */
+	private int
+	findFirstChannel(int y) {
+		int low = 0;
+		int high = listModel.size();
+		
+		while(low < high) {
+			int mid = (low + high) >>> 1;
+			Rectangle cr = getChannelBounds((Channel)listModel.get(mid));
+			if(cr.y + cr.height <= y) low = mid + 1;
+			else high = mid;
+		}
+		
+		return low;
+	}
+	
+	/** Gets the bounds of the specified channel in the coordinate space of the channel list. */
+	private Rectangle
+	getChannelBounds(Channel c) {
+		return SwingUtilities.convertRectangle(c.getParent(), c.getBounds(), chnList);
 	}
 	
 	class ContextMenu extends MouseAdapter {
@@ -23,8 +23,12 @@ package com.grigoriliev.jsampler.classic.view;
 
 import java.awt.Color;
 
+import java.util.logging.Level;
+
+import java.util.prefs.BackingStoreException;
 import java.util.prefs.Preferences;
 
+import com.grigoriliev.jsampler.CC;
 import com.grigoriliev.jsampler.JSPrefs;
 
 
@@ -101,19 +105,51 @@ public class ClassicPrefs extends JSPrefs {
 	private final static String CURRENT_ORCHESTRA_IDX = "OrchestrasPage.currentOrchestraIndex";
 	private final static int DEF_CURRENT_ORCHESTRA_IDX = 0;
 	
-	private static Preferences userPrefs = Preferences.userRoot().node(prefNode);
+	private final static String CHANNEL_REFRESH_RATE = "Channel.refreshRate";
+	private final static int DEF_CHANNEL_REFRESH_RATE = 25;
+	
+	private final static String VIRTUAL_CHANNEL_LIST = "ChannelsPane.virtualChannelList";
+	private final static boolean DEF_VIRTUAL_CHANNEL_LIST = false;
+	
+	private final static String LS_CONSOLE_MAX_LINES = "LSConsolePane.maxLines";
+	private final static int DEF_LS_CONSOLE_MAX_LINES = 5000;
+	
+	private final static WriteBehindPreferences userPrefs =
+		new WriteBehindPreferences(Preferences.userRoot().node(prefNode));
 	
 	private final static ClassicPrefs prefs = new ClassicPrefs();
 	
 	private
-	ClassicPrefs() { super(prefNode); }
+	ClassicPrefs() { super(userPrefs); }
 	
 	public static ClassicPrefs
 	preferences() { return prefs; }
 	
+	/**
+	 * Gets the preference node of the JS Classic package. The values are cached
+	 * in memory and, once {@link #startWriteBehind} is invoked, the changes are
+	 * written in the background, so {@link #flush} should be invoked to make
+	 * sure that all changes are persisted.
+	 */
 	public static Preferences
 	user() { return userPrefs; }
 	
+	/**
+	 * Starts writing the preference changes in the background,
+	 * instead of writing each change immediately.
+	 */
+	public static void
+	startWriteBehind() { userPrefs.startWriteBehind(); }
+	
+	/** Writes the pending preference changes to the backing store. */
+	public static void
+	flush() {
+		try { user().flush(); }
+		catch(BackingStoreException e) {
+			CC.getLogger().log(Level.INFO, "Failed to save the preferences", e);
+		}
+	}
+	
 	/**
 	 * Gets a string representation of a window's size and location.
 	 * The string representation is a comma-separated list
@@ -628,6 +664,73 @@ public class ClassicPrefs extends JSPrefs {
 		user().putInt(CURRENT_ORCHESTRA_IDX, i);
 	}
 	
+	/**
+	 * Gets the maximum number of times per second
+	 * the channel voice and stream counters are updated.
+	 * @return The channel refresh rate in Hz (1-100).
+	 */
+	public static int
+	getChannelRefreshRate() {
+		int i = user().getInt(CHANNEL_REFRESH_RATE, DEF_CHANNEL_REFRESH_RATE);
+		if(i < 1 || i > 100) return DEF_CHANNEL_REFRESH_RATE;
+		return i;
+	}
+	
+	/**
+	 * Sets the maximum number of times per second
+	 * the channel voice and stream counters are updated.
+	 * @param i The new channel refresh rate in Hz (1-100).
+	 */
+	public static void
+	setChannelRefreshRate(int i) {
+		if(i == getChannelRefreshRate()) return;
+		user().putInt(CHANNEL_REFRESH_RATE, i);
+	}
+	
+	/**
+	 * Determines whether the channels panes should create channel strips
+	 * only for the channels in the visible part of the channel list.
+	 * @return <code>true</code> if only the visible channels should have
+	 * channel strips, <code>false</code> otherwise.
+	 */
+	public static boolean
+	getVirtualChannelList() {
+		return user().getBoolean(VIRTUAL_CHANNEL_LIST, DEF_VIRTUAL_CHANNEL_LIST);
+	}
+	
+	/**
+	 * Sets whether the channels panes should create channel strips
+	 * only for the channels in the visible part of the channel list.
+	 * The change takes effect for the newly created channels panes.
+	 * @param b If <code>true</code>, only the visible channels will have channel strips.
+	 */
+	public static void
+	setVirtualChannelList(boolean b) {
+		if(b == getVirtualChannelList()) return;
+		user().putBoolean(VIRTUAL_CHANNEL_LIST, b);
+	}
+	
+	/**
+	 * Gets the maximum number of lines kept in the LS console output.
+	 * When the limit is exceeded, the oldest lines are removed.
+	 * @return The maximum number of lines, or <code>0</code> if the output is unlimited.
+	 */
+	public static int
+	getLSConsoleMaxLines() {
+		int i = user().getInt(LS_CONSOLE_MAX_LINES, DEF_LS_CONSOLE_MAX_LINES);
+		return i < 0 ? DEF_LS_CONSOLE_MAX_LINES : i;
+	}
+	
+	/**
+	 * Sets the maximum number of lines kept in the LS console output.
+	 * @param i The maximum number of lines, or <code>0</code> for unlimited output.
+	 */
+	public static void
+	setLSConsoleMaxLines(int i) {
+		if(i == getLSConsoleMaxLines()) return;
+		user().putInt(LS_CONSOLE_MAX_LINES, i);
+	}
+	
 	public int
 	getDefaultIntValue(String name) {
 		if(name == LS_CONSOLE_BACKGROUND_COLOR) return 0xffffff;
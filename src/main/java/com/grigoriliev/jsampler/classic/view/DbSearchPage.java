@@ -32,19 +32,50 @@ import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 
+import java.io.File;
+import java.io.IOException;
+
+import java.util.Vector;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import java.util.logging.Level;
+
+import javax.swing.BorderFactory;
+import javax.swing.Box;
 import javax.swing.BoxLayout;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
 import javax.swing.JComponent;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JTextField;
 import javax.swing.JToggleButton;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+import com.grigoriliev.jsampler.juife.event.TaskEvent;
+import com.grigoriliev.jsampler.juife.event.TaskListener;
 
 import com.grigoriliev.jsampler.juife.swing.NavigationPage;
 
+import com.grigoriliev.jsampler.CC;
+import com.grigoriliev.jsampler.HF;
+
+import com.grigoriliev.jsampler.task.InstrumentsDb;
+
+import com.grigoriliev.jsampler.swing.view.SHF;
 import com.grigoriliev.jsampler.swing.view.std.JSDbSearchPane;
 
+import com.grigoriliev.jsampler.jlscp.DbDirectoryInfo;
+import com.grigoriliev.jsampler.jlscp.DbInstrumentInfo;
+import com.grigoriliev.jsampler.jlscp.DbSearchQuery;
+
 import static com.grigoriliev.jsampler.classic.view.ClassicI18n.i18n;
 
 /**
@@ -52,11 +83,73 @@ import static com.grigoriliev.jsampler.classic.view.ClassicI18n.i18n;
  * @author Grigor Iliev
  */
 public class DbSearchPage extends NavigationPage {
+	/** The maximum number of results shown before the user asks for more. */
+	public final static int PAGE_SIZE = 1000;
+	
+	/** The number of results added to the instruments table at once. */
+	private final static int CHUNK_SIZE = 100;
+	
+	/** The time in milliseconds after the last keystroke before searching. */
+	public final static int SEARCH_DELAY = 300;
+	
+	private final InstrumentsDbFrame frame;
 	private final DbSearchPane dbSearchPane;
 	
+	private final JTextField tfQuickSearch = new JTextField();
+	private final JComboBox cbSource = new JComboBox();
+	private final JButton btnUpdateSnapshot =
+		new JButton(i18n.getButtonLabel("DbSearchPage.btnUpdateSnapshot"));
+	
+	/** The local snapshot of the instruments database, or <code>null</code> if not opened yet. */
+	private final AtomicReference<InstrumentsDbSnapshot> snapshot =
+		new AtomicReference<InstrumentsDbSnapshot>();
+	
+	/**
+	 * Prevents the snapshot from being opened twice by concurrent searches.
+	 * Held only by background threads, while the snapshot is being opened.
+	 */
+	private final Object snapshotLock = new Object();
+	
+	/** Determines whether the snapshot is being updated. */
+	private boolean exporting = false;
+	
+	private final Timer quickSearchTimer;
+	private QuickSearch quickSearch = null;
+	
+	/** The search path used by the quick search. */
+	private String searchPath = "/";
+	
+	/**
+	 * The query and the search path of the last completed quick search,
+	 * or <code>null</code> if the current results are not from a quick search.
+	 */
+	private String lastQuery = null;
+	private String lastSearchPath = null;
+	
+	/** Determines whether the current results are from a quick search. */
+	private boolean quickResults = false;
+	
+	private final JLabel lResults = new JLabel();
+	private final JButton btnLoadMore =
+		new JButton(i18n.getButtonLabel("DbSearchPage.btnLoadMore"));
+	private final JButton btnCancel = new JButton(i18n.getButtonLabel("DbSearchPage.btnCancel"));
+	
+	/** Adds the pending results to the instruments table chunk by chunk. */
+	private final Timer feedTimer;
+	
+	private DbDirectoryInfo[] directoryResults = new DbDirectoryInfo[0];
+	private DbInstrumentInfo[] instrumentResults = new DbInstrumentInfo[0];
+	
+	/** The number of results added to the instruments table. */
+	private int shownResults = 0;
+	
+	/** The number of results to be shown when the feeding is done. */
+	private int pageEnd = 0;
+	
 	/** Creates a new instance of <code>DbSearchPage</code> */
 	public
 	DbSearchPage(final InstrumentsDbFrame frame) {
+		this.frame = frame;
 		setTitle(i18n.getLabel("DbSearchPage.title"));
 		setLayout(new BorderLayout());
 		
@@ -64,19 +157,558 @@ public class DbSearchPage extends NavigationPage {
 		dbSearchPane.setBackgroundColor(java.awt.Color.WHITE);
 		add(dbSearchPane);
 		
+		tfQuickSearch.setToolTipText(i18n.getLabel("DbSearchPage.tfQuickSearch.tt"));
+		
+		cbSource.addItem(i18n.getLabel("DbSearchPage.cbSource.database"));
+		cbSource.addItem(i18n.getLabel("DbSearchPage.cbSource.snapshot"));
+		cbSource.setToolTipText(i18n.getLabel("DbSearchPage.cbSource.tt"));
+		cbSource.setMaximumSize(cbSource.getPreferredSize());
+		btnUpdateSnapshot.setToolTipText(i18n.getLabel("DbSearchPage.btnUpdateSnapshot.tt"));
+		
+		JPanel p = new JPanel();
+		p.setLayout(new BoxLayout(p, BoxLayout.X_AXIS));
+		p.setBorder(BorderFactory.createEmptyBorder(3, 3, 3, 3));
+		p.add(tfQuickSearch);
+		p.add(Box.createRigidArea(new Dimension(3, 0)));
+		p.add(cbSource);
+		p.add(Box.createRigidArea(new Dimension(3, 0)));
+		p.add(btnUpdateSnapshot);
+		add(p, BorderLayout.NORTH);
+		
+		cbSource.addActionListener(new ActionListener() {
+			public void
+			actionPerformed(ActionEvent e) {
+				// the results from the other source can't be refined
+				lastQuery = null;
+				quickSearch();
+			}
+		});
+		
+		btnUpdateSnapshot.addActionListener(new ActionListener() {
+			public void
+			actionPerformed(ActionEvent e) { updateSnapshot(); }
+		});
+		
+		quickSearchTimer = new Timer(SEARCH_DELAY, new ActionListener() {
+			public void
+			actionPerformed(ActionEvent e) { quickSearch(); }
+		});
+		quickSearchTimer.setRepeats(false);
+		
+		tfQuickSearch.getDocument().addDocumentListener(new DocumentListener() {
+			public void
+			insertUpdate(DocumentEvent e) { quickSearchTimer.restart(); }
+			
+			public void
+			removeUpdate(DocumentEvent e) { quickSearchTimer.restart(); }
+			
+			public void
+			changedUpdate(DocumentEvent e) { }
+		});
+		
+		p = new JPanel();
+		p.setLayout(new BoxLayout(p, BoxLayout.X_AXIS));
+		p.setBorder(BorderFactory.createEmptyBorder(3, 3, 3, 3));
+		p.add(lResults);
+		p.add(Box.createGlue());
+		p.add(btnLoadMore);
+		p.add(Box.createRigidArea(new Dimension(3, 0)));
+		p.add(btnCancel);
+		add(p, BorderLayout.SOUTH);
+		
+		feedTimer = new Timer(0, new ActionListener() {
+			public void
+			actionPerformed(ActionEvent e) { feedChunk(); }
+		});
+		
+		btnLoadMore.addActionListener(new ActionListener() {
+			public void
+			actionPerformed(ActionEvent e) { loadMore(); }
+		});
+		
+		btnCancel.addActionListener(new ActionListener() {
+			public void
+			actionPerformed(ActionEvent e) { cancel(); }
+		});
+		
 		dbSearchPane.addChangeListener(new ChangeListener() {
 			public void
 			stateChanged(ChangeEvent e) {
-				frame.setSearchResults (
+				cancelQuickSearch();
+				lastQuery = null;
+				quickResults = false;
+				setResults (
 					dbSearchPane.getDirectoryResults(),
 					dbSearchPane.getInstrumentResults()
 				);
 			}
 		});
+		
+		updateState();
 	}
 	
 	public void
-	setSearchPath(String path) { dbSearchPane.setSearchPath(path); }
+	setSearchPath(String path) {
+		dbSearchPane.setSearchPath(path);
+		searchPath = path;
+	}
+	
+	/**
+	 * Searches for instruments and directories whose names contain the text
+	 * in the quick search field. If the text narrows the query of the last
+	 * quick search in the same path, the previous results are filtered
+	 * locally. Otherwise, the back-end is queried and any quick search
+	 * in progress is superseded. If the quick search field is empty,
+	 * the results of the last search by criteria are shown again.
+	 */
+	private void
+	quickSearch() {
+		cancelQuickSearch();
+		
+		String query = tfQuickSearch.getText().trim();
+		if(query.isEmpty()) {
+			lastQuery = null;
+			if(quickResults) {
+				quickResults = false;
+				setResults (
+					dbSearchPane.getDirectoryResults(),
+					dbSearchPane.getInstrumentResults()
+				);
+			}
+			updateState();
+			return;
+		}
+		
+		if(!isLocalSource() && isNarrowing(query)) {
+			long time = System.nanoTime();
+			refineResults(query);
+			time = (System.nanoTime() - time) / 1000000;
+			CC.getLogger().fine("Refined the results for \"" + query + "\" in " + time + "ms");
+			return;
+		}
+		
+		if(isLocalSource()) quickSearch = new SnapshotSearch(query, searchPath);
+		else quickSearch = new DbQuickSearch(query, searchPath);
+		quickSearch.start();
+		updateState();
+	}
+	
+	/**
+	 * Determines whether the results of the last quick search
+	 * contain all results of the specified query.
+	 */
+	private boolean
+	isNarrowing(String query) {
+		if(lastQuery == null || !searchPath.equals(lastSearchPath)) return false;
+		if(hasWildcards(query) || hasWildcards(lastQuery)) return false;
+		
+		return query.toLowerCase().contains(lastQuery.toLowerCase());
+	}
+	
+	private static boolean
+	hasWildcards(String s) {
+		return s.indexOf('*') != -1 || s.indexOf('?') != -1 || s.indexOf('[') != -1;
+	}
+	
+	/** Filters the current results, keeping the ones whose names contain the query. */
+	private void
+	refineResults(String query) {
+		String q = query.toLowerCase();
+		
+		Vector<DbDirectoryInfo> dirs = new Vector<DbDirectoryInfo>();
+		for(DbDirectoryInfo d : directoryResults) {
+			if(d.getName().toLowerCase().contains(q)) dirs.add(d);
+		}
+		
+		Vector<DbInstrumentInfo> instrs = new Vector<DbInstrumentInfo>();
+		for(DbInstrumentInfo i : instrumentResults) {
+			if(i.getName().toLowerCase().contains(q)) instrs.add(i);
+		}
+		
+		setResults (
+			dirs.toArray(new DbDirectoryInfo[dirs.size()]),
+			instrs.toArray(new DbInstrumentInfo[instrs.size()])
+		);
+		lastQuery = query;
+	}
+	
+	/** Determines whether the quick search uses the local snapshot of the database. */
+	private boolean
+	isLocalSource() { return cbSource.getSelectedIndex() == 1; }
+	
+	/**
+	 * Gets the directory of the instruments database snapshots,
+	 * which is the JSampler's home directory.
+	 */
+	private static File
+	getSnapshotDir() {
+		String s = CC.getJSamplerHome();
+		return s == null ? null : new File(s);
+	}
+	
+	/**
+	 * Gets the local snapshot of the instruments database, opening it
+	 * on first use. This method may take a long time on first use
+	 * and should not be invoked on the event-dispatching thread.
+	 * @throws IOException If there is no snapshot or it can't be read.
+	 */
+	private InstrumentsDbSnapshot
+	getSnapshot() throws IOException {
+		InstrumentsDbSnapshot s = snapshot.get();
+		if(s != null) return s;
+		
+		synchronized(snapshotLock) {
+			s = snapshot.get();
+			if(s != null) return s;
+			
+			File dir = getSnapshotDir();
+			File f = dir == null ? null : InstrumentsDbSnapshot.findLatest(dir);
+			if(f == null) {
+				throw new IOException(i18n.getError("DbSearchPage.noSnapshot!"));
+			}
+			
+			// A newer snapshot may be set while this one is being opened
+			snapshot.compareAndSet(null, new InstrumentsDbSnapshot(f));
+			return snapshot.get();
+		}
+	}
+	
+	/** Replaces the local snapshot. Doesn't block. */
+	private void
+	setSnapshot(InstrumentsDbSnapshot s) { snapshot.set(s); }
+	
+	/**
+	 * Updates the local snapshot. The instruments database is read through
+	 * the task queue. Then the snapshot is written and opened in the background.
+	 */
+	private void
+	updateSnapshot() {
+		if(exporting) return;
+		
+		final File dir = getSnapshotDir();
+		if(dir == null) {
+			SHF.showErrorMessage(i18n.getError("DbSearchPage.noJSamplerHome!"));
+			return;
+		}
+		
+		final InstrumentsDbSnapshot.Export t = new InstrumentsDbSnapshot.Export();
+		t.addTaskListener(new TaskListener() {
+			public void
+			taskPerformed(TaskEvent e) {
+				if(t.doneWithErrors()) {
+					exporting = false;
+					updateState();
+					lResults.setText(t.getErrorMessage());
+					return;
+				}
+				
+				new WriteSnapshot(t, dir).execute();
+			}
+		});
+		
+		exporting = true;
+		CC.getTaskQueue().add(t);
+		updateState();
+	}
+	
+	/**
+	 * Writes the instruments database read by the specified task
+	 * to a new snapshot, opens it and removes the older snapshots.
+	 */
+	private class WriteSnapshot extends SwingWorker<InstrumentsDbSnapshot, Void> {
+		private final InstrumentsDbSnapshot.Export export;
+		private final File dir;
+		
+		WriteSnapshot(InstrumentsDbSnapshot.Export export, File dir) {
+			this.export = export;
+			this.dir = dir;
+		}
+		
+		@Override
+		protected InstrumentsDbSnapshot
+		doInBackground() throws Exception {
+			File f = export.write(dir);
+			InstrumentsDbSnapshot s = new InstrumentsDbSnapshot(f);
+			InstrumentsDbSnapshot.deleteOlder(dir, f);
+			return s;
+		}
+		
+		@Override
+		protected void
+		done() {
+			exporting = false;
+			
+			try { setSnapshot(get()); }
+			catch(Exception x) {
+				CC.getLogger().log(Level.INFO, HF.getErrorMessage(x), x);
+				SHF.showErrorMessage(HF.getErrorMessage(x));
+			}
+			
+			updateState();
+			if(isLocalSource()) {
+				lastQuery = null;
+				quickSearch();
+			}
+		}
+	}
+	
+	/** Cancels the pending and the running quick search, if any. */
+	private void
+	cancelQuickSearch() {
+		quickSearchTimer.stop();
+		if(quickSearch == null) return;
+		
+		quickSearch.cancel();
+		quickSearch = null;
+	}
+	
+	/**
+	 * A quick search in progress. The results of a search
+	 * which is superseded by another one are discarded.
+	 */
+	private abstract class QuickSearch {
+		protected final String query;
+		protected final String path;
+		
+		QuickSearch(String query, String path) {
+			this.query = query;
+			this.path = path;
+		}
+		
+		/** Starts the search. */
+		abstract void
+		start();
+		
+		/** Stops the search, if possible. */
+		void
+		cancel() { }
+		
+		/** Determines whether this search is superseded or cancelled. */
+		boolean
+		isSuperseded() { return quickSearch != this; }
+		
+		/**
+		 * Shows the results of this search, unless it is superseded.
+		 * Should be invoked on the event-dispatching thread.
+		 */
+		void
+		done(DbDirectoryInfo[] directories, DbInstrumentInfo[] instruments) {
+			if(isSuperseded()) return;
+			quickSearch = null;
+			
+			setResults(directories, instruments);
+			quickResults = true;
+			lastQuery = query;
+			lastSearchPath = path;
+		}
+		
+		/**
+		 * Shows the specified error message, unless this search is superseded.
+		 * Should be invoked on the event-dispatching thread.
+		 */
+		void
+		failed(String msg) {
+			if(isSuperseded()) return;
+			quickSearch = null;
+			
+			updateState();
+			lResults.setText(msg);
+		}
+	}
+	
+	/**
+	 * Searches the instruments database for instruments and directories
+	 * by name, using the task queue.
+	 */
+	private class DbQuickSearch extends QuickSearch {
+		private final InstrumentsDb.FindDirectories findDirectories;
+		private final InstrumentsDb.FindInstruments findInstruments;
+		
+		DbQuickSearch(String query, String path) {
+			super(query, path);
+			
+			DbSearchQuery q = new DbSearchQuery();
+			q.name = query;
+			
+			findDirectories = new InstrumentsDb.FindDirectories(path, q);
+			findInstruments = new InstrumentsDb.FindInstruments(path, q);
+		}
+		
+		void
+		start() {
+			findDirectories.addTaskListener(new TaskListener() {
+				public void
+				taskPerformed(TaskEvent e) {
+					if(isSuperseded()) return;
+					
+					if(findDirectories.doneWithErrors()) {
+						failed(findDirectories.getErrorMessage());
+						return;
+					}
+					
+					CC.getTaskQueue().add(findInstruments);
+				}
+			});
+			
+			findInstruments.addTaskListener(new TaskListener() {
+				public void
+				taskPerformed(TaskEvent e) {
+					if(findInstruments.doneWithErrors()) {
+						failed(findInstruments.getErrorMessage());
+						return;
+					}
+					
+					done(findDirectories.getResult(), findInstruments.getResult());
+				}
+			});
+			
+			CC.getTaskQueue().add(findDirectories);
+		}
+	}
+	
+	/** Searches the local snapshot of the instruments database for instruments. */
+	private class SnapshotSearch extends QuickSearch {
+		private final SwingWorker<DbInstrumentInfo[], Void> worker;
+		
+		SnapshotSearch(String query, String path) {
+			super(query, path);
+			
+			worker = new SwingWorker<DbInstrumentInfo[], Void>() {
+				@Override
+				protected DbInstrumentInfo[]
+				doInBackground() throws Exception {
+					long time = System.nanoTime();
+					DbInstrumentInfo[] instrs = getSnapshot().findInstruments(query, path);
+					time = (System.nanoTime() - time) / 1000000;
+					CC.getLogger().fine (
+						"Found " + instrs.length + " instruments for \"" +
+						query + "\" in the snapshot in " + time + "ms"
+					);
+					return instrs;
+				}
+				
+				@Override
+				protected void
+				done() {
+					if(isCancelled()) return;
+					
+					DbInstrumentInfo[] instrs;
+					try { instrs = get(); }
+					catch(Exception x) {
+						CC.getLogger().log(Level.INFO, HF.getErrorMessage(x), x);
+						failed(HF.getErrorMessage(x));
+						return;
+					}
+					
+					SnapshotSearch.this.done(new DbDirectoryInfo[0], instrs);
+				}
+			};
+		}
+		
+		void
+		start() { worker.execute(); }
+		
+		@Override
+		void
+		cancel() { worker.cancel(true); }
+	}
+	
+	/**
+	 * Replaces the search results in the instruments table. Only the first
+	 * {@link #PAGE_SIZE} results are shown, added in small chunks so that
+	 * the UI stays responsive. The rest are shown on request.
+	 */
+	private void
+	setResults(DbDirectoryInfo[] directories, DbInstrumentInfo[] instruments) {
+		feedTimer.stop();
+		
+		directoryResults = directories != null ? directories : new DbDirectoryInfo[0];
+		instrumentResults = instruments != null ? instruments : new DbInstrumentInfo[0];
+		shownResults = 0;
+		pageEnd = Math.min(PAGE_SIZE, getResultCount());
+		
+		frame.clearSearchResults();
+		feedChunk();
+		if(shownResults < pageEnd) feedTimer.start();
+	}
+	
+	private int
+	getResultCount() { return directoryResults.length + instrumentResults.length; }
+	
+	/** Adds the next chunk of results to the instruments table. */
+	private void
+	feedChunk() {
+		int end = Math.min(shownResults + CHUNK_SIZE, pageEnd);
+		
+		// the directories are shown before the instruments
+		int dirCount = directoryResults.length;
+		DbDirectoryInfo[] dirs = null;
+		if(shownResults < dirCount) {
+			int i = Math.min(end, dirCount);
+			dirs = new DbDirectoryInfo[i - shownResults];
+			System.arraycopy(directoryResults, shownResults, dirs, 0, dirs.length);
+		}
+		
+		DbInstrumentInfo[] instrs = null;
+		if(end > dirCount) {
+			int i = Math.max(shownResults, dirCount) - dirCount;
+			instrs = new DbInstrumentInfo[end - dirCount - i];
+			System.arraycopy(instrumentResults, i, instrs, 0, instrs.length);
+		}
+		
+		if(dirs != null || instrs != null) frame.addSearchResults(dirs, instrs);
+		shownResults = end;
+		
+		if(shownResults >= pageEnd) feedTimer.stop();
+		updateState();
+	}
+	
+	/** Shows the next page of results. */
+	private void
+	loadMore() {
+		pageEnd = Math.min(pageEnd + PAGE_SIZE, getResultCount());
+		if(shownResults < pageEnd) feedTimer.start();
+		updateState();
+	}
+	
+	/**
+	 * Stops adding results and discards the results that are not shown yet.
+	 * A quick search in progress is cancelled too.
+	 */
+	private void
+	cancel() {
+		cancelQuickSearch();
+		feedTimer.stop();
+		
+		// the truncated results can't be refined
+		lastQuery = null;
+		pageEnd = shownResults;
+		
+		DbDirectoryInfo[] dirs = directoryResults;
+		int i = Math.min(shownResults, dirs.length);
+		directoryResults = new DbDirectoryInfo[i];
+		System.arraycopy(dirs, 0, directoryResults, 0, i);
+		
+		DbInstrumentInfo[] instrs = instrumentResults;
+		i = shownResults - i;
+		instrumentResults = new DbInstrumentInfo[i];
+		System.arraycopy(instrs, 0, instrumentResults, 0, i);
+		
+		updateState();
+	}
+	
+	private void
+	updateState() {
+		btnLoadMore.setEnabled(!feedTimer.isRunning() && shownResults < getResultCount());
+		boolean b = feedTimer.isRunning() || shownResults < getResultCount();
+		btnCancel.setEnabled(b || quickSearch != null);
+		btnUpdateSnapshot.setEnabled(!exporting);
+		
+		
+		if(exporting) lResults.setText(i18n.getLabel("DbSearchPage.exporting"));
+		else if(quickSearch != null) lResults.setText(i18n.getLabel("DbSearchPage.searching"));
+		else lResults.setText(i18n.getLabel("DbSearchPage.lResults", shownResults, getResultCount()));
+	}
 	
 	class DbSearchPane extends JSDbSearchPane {
 		DbSearchPane(Frame owner) {
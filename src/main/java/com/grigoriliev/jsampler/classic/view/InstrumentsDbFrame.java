@@ -48,6 +48,8 @@ import javax.swing.KeyStroke;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 
+import javax.swing.table.AbstractTableModel;
+
 import com.grigoriliev.jsampler.juife.swing.NavigationPage;
 import com.grigoriliev.jsampler.juife.swing.NavigationPane;
 
@@ -463,28 +465,55 @@ public class InstrumentsDbFrame extends JFrame {
 	
 	public void
 	setSearchResults(DbDirectoryInfo[] directories, DbInstrumentInfo[] instruments) {
+		clearSearchResults();
+		addSearchResults(directories, instruments);
+	}
+	
+	/** Removes all search results and shows the empty search results. */
+	public void
+	clearSearchResults() {
 		DbDirectoryTreeNode node = mainPane.getSearchResultsNode();
 		node.removeAllDirectories();
 		node.removeAllInstruments();
 		
-		if(instruments != null) {
-			for(DbInstrumentInfo i : instruments) i.setShowAbsolutePath(true);
-			node.addInstruments(instruments);
-		}
+		mainPane.showSearchResultsNode();
+	}
+	
+	/**
+	 * Appends the specified directories and instruments to the search results.
+	 * If the instruments table still shows the search results, only the appended
+	 * rows are reported to it, so the selection and the scroll position are kept.
+	 * @param directories The directories to append, or <code>null</code>.
+	 * @param instruments The instruments to append, or <code>null</code>.
+	 */
+	public void
+	addSearchResults(DbDirectoryInfo[] directories, DbInstrumentInfo[] instruments) {
+		DbDirectoryTreeNode node = mainPane.getSearchResultsNode();
+		JSInstrumentsDbTable table = mainPane.getInstrumentsTable();
+		AbstractTableModel model = null;
+		if(table.getParentDirectoryNode() == node) model = (AbstractTableModel)table.getModel();
 		
-		if(directories != null) {
+		// The directories are listed before the instruments
+		if(directories != null && directories.length > 0) {
 			DbDirectoryTreeNode[] nodeS = new DbDirectoryTreeNode[directories.length];
 			for(int i = 0; i < directories.length; i++) {
 				DbDirectoryInfo d = directories[i];
 				d.setShowAbsolutePath(true);
 				nodeS[i] = new DbDirectoryTreeNode(d);
-			
-			
 			}
+			
+			int first = node.getChildCount();
 			node.addDirectories(nodeS);
+			if(model != null) model.fireTableRowsInserted(first, node.getChildCount() - 1);
 		}
 		
-		mainPane.showSearchResultsNode();
+		if(instruments != null && instruments.length > 0) {
+			for(DbInstrumentInfo i : instruments) i.setShowAbsolutePath(true);
+			
+			int first = model == null ? 0 : model.getRowCount();
+			node.addInstruments(instruments);
+			if(model != null) model.fireTableRowsInserted(first, model.getRowCount() - 1);
+		}
 	}
 	
 	class MainPane extends JPanel {
@@ -0,0 +1,545 @@
+/*
+ *   JSampler - a front-end for LinuxSampler
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of JSampler.
+ *
+ *   JSampler is free software: you can redistribute it and/or modify it under
+ *   the terms of the GNU General Public License as published by the Free
+ *   Software Foundation, either version 3 of the License, or (at your option)
+ *   any later version.
+ *
+ *   JSampler is distributed in the hope that it will be useful, but WITHOUT
+ *   ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *   FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ *   more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with JSampler. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.grigoriliev.jsampler.classic.view;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.Vector;
+
+import com.grigoriliev.jsampler.CC;
+
+import com.grigoriliev.jsampler.task.EnhancedTask;
+
+import com.grigoriliev.jsampler.jlscp.DbDirectoryInfo;
+import com.grigoriliev.jsampler.jlscp.DbInstrumentInfo;
+import com.grigoriliev.jsampler.jlscp.LSException;
+import com.grigoriliev.jsampler.jlscp.LscpException;
+
+import static com.grigoriliev.jsampler.classic.view.ClassicI18n.i18n;
+
+
+/**
+ * A read-only local snapshot of the instruments database. The snapshot file
+ * consists of a string table, in which each distinct string is stored once,
+ * followed by one column per instrument attribute. The file is memory-mapped
+ * and the strings are decoded on demand. A full-text index of the instrument
+ * names, descriptions, products, artists and keywords is built in memory when
+ * the snapshot is opened, so searches never reach the back-end.
+ * Each update creates a new file, whose name contains its version,
+ * so a snapshot is never replaced while it is mapped.
+ * @author Grigor Iliev
+ */
+class InstrumentsDbSnapshot {
+	/** The name of a snapshot file consists of this prefix, its version and extension. */
+	public final static String FILE_PREFIX = "instrumentsdb-";
+	public final static String FILE_EXTENSION = ".snapshot";
+	
+	private final static int MAGIC = 0x4A534442; // JSDB
+	private final static int VERSION = 1;
+	
+	/** The string columns, in the order in which they are stored. */
+	private final static int NAME = 0;
+	private final static int DIRECTORY = 1;
+	private final static int FILE_PATH = 2;
+	private final static int FORMAT_FAMILY = 3;
+	private final static int FORMAT_VERSION = 4;
+	private final static int DESCRIPTION = 5;
+	private final static int PRODUCT = 6;
+	private final static int ARTISTS = 7;
+	private final static int KEYWORDS = 8;
+	private final static int STRING_COLUMN_COUNT = 9;
+	
+	/** The columns whose words are indexed. */
+	private final static int[] INDEXED_COLUMNS = { NAME, DESCRIPTION, PRODUCT, ARTISTS, KEYWORDS };
+	
+	private final File file;
+	private final MappedByteBuffer buffer;
+	private final long created;
+	
+	private final int stringCount;
+	private final int stringOffsetsPos;
+	private final int stringDataPos;
+	
+	private final int instrumentCount;
+	private final int[] columnPos = new int[STRING_COLUMN_COUNT];
+	private final int instrumentIndexPos;
+	private final int sizePos;
+	
+	/** Maps the indexed words to the sorted IDs of the instruments containing them. */
+	private final TreeMap<String, int[]> index = new TreeMap<String, int[]>();
+	
+	/**
+	 * Opens the specified snapshot and builds its full-text index.
+	 * @param file The snapshot file.
+	 * @throws IOException If the file can't be read or is not a valid snapshot.
+	 */
+	InstrumentsDbSnapshot(File file) throws IOException {
+		this.file = file;
+		long time = System.nanoTime();
+		
+		FileChannel fc = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			if(fc.size() > Integer.MAX_VALUE) throw new IOException("Snapshot too large: " + file);
+			buffer = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+		} finally {
+			fc.close();
+		}
+		
+		if(buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new IOException("Not a valid instruments DB snapshot: " + file);
+		}
+		
+		created = buffer.getLong(8);
+		stringCount = buffer.getInt(16);
+		stringOffsetsPos = 20;
+		stringDataPos = stringOffsetsPos + (stringCount + 1) * 4;
+		
+		int pos = stringDataPos + buffer.getInt(stringOffsetsPos + stringCount * 4);
+		instrumentCount = buffer.getInt(pos);
+		pos += 4;
+		
+		for(int i = 0; i < STRING_COLUMN_COUNT; i++) {
+			columnPos[i] = pos;
+			pos += instrumentCount * 4;
+		}
+		
+		instrumentIndexPos = pos;
+		pos += instrumentCount * 4;
+		sizePos = pos;
+		
+		buildIndex();
+		
+		time = (System.nanoTime() - time) / 1000000;
+		CC.getLogger().info (
+			"Opened instruments DB snapshot " + file + " with " + instrumentCount +
+			" instruments and " + index.size() + " indexed words in " + time + "ms"
+		);
+	}
+	
+	/** Gets the snapshot file. */
+	public File
+	getFile() { return file; }
+	
+	/** Gets the time when the snapshot was created. */
+	public long
+	getCreationTime() { return created; }
+	
+	/** Gets the number of instruments in the snapshot. */
+	public int
+	getInstrumentCount() { return instrumentCount; }
+	
+	private String
+	getString(int id) {
+		int start = buffer.getInt(stringOffsetsPos + id * 4);
+		int end = buffer.getInt(stringOffsetsPos + (id + 1) * 4);
+		
+		byte[] b = new byte[end - start];
+		ByteBuffer bb = buffer.duplicate();
+		bb.position(stringDataPos + start);
+		bb.get(b);
+		
+		return new String(b, StandardCharsets.UTF_8);
+	}
+	
+	private int
+	getStringId(int column, int instrument) {
+		return buffer.getInt(columnPos[column] + instrument * 4);
+	}
+	
+	private String
+	getValue(int column, int instrument) {
+		return getString(getStringId(column, instrument));
+	}
+	
+	private void
+	buildIndex() {
+		// the words of each distinct string are extracted only once
+		HashMap<Integer, Vector<String>> words = new HashMap<Integer, Vector<String>>();
+		HashMap<String, IntList> postings = new HashMap<String, IntList>();
+		
+		for(int i = 0; i < instrumentCount; i++) {
+			for(int column : INDEXED_COLUMNS) {
+				int id = getStringId(column, i);
+				Vector<String> v = words.get(id);
+				if(v == null) {
+					v = new Vector<String>();
+					TextIndexUtils.tokenize(getString(id), v);
+					words.put(id, v);
+				}
+				
+				for(String s : v) {
+					IntList l = postings.get(s);
+					if(l == null) {
+						l = new IntList();
+						postings.put(s, l);
+					}
+					
+					// the same word may occur in several columns
+					if(l.size == 0 || l.get(l.size - 1) != i) l.add(i);
+				}
+			}
+		}
+		
+		for(Map.Entry<String, IntList> e : postings.entrySet()) {
+			index.put(e.getKey(), e.getValue().toArray());
+		}
+	}
+	
+	/**
+	 * Finds the instruments in the specified directory and its subdirectories,
+	 * which for each word in the query have a word starting with that query
+	 * word in their name, description, product, artists or keywords.
+	 * @param query The words to search for.
+	 * @param path The absolute path name of the directory to search in.
+	 * @return The instruments found.
+	 */
+	public DbInstrumentInfo[]
+	findInstruments(String query, String path) {
+		Vector<String> tokens = new Vector<String>();
+		TextIndexUtils.tokenize(query, tokens);
+		if(tokens.isEmpty()) return new DbInstrumentInfo[0];
+		
+		int[] result = null;
+		for(String s : tokens) {
+			int[] ids = findByPrefix(s);
+			result = result == null ? ids : intersect(result, ids);
+			if(result.length == 0) break;
+		}
+		
+		String prefix = path.endsWith("/") ? path : path + "/";
+		Vector<DbInstrumentInfo> v = new Vector<DbInstrumentInfo>();
+		for(int id : result) {
+			if(!(getValue(DIRECTORY, id) + "/").startsWith(prefix)) continue;
+			
+			v.add(createInstrumentInfo(id));
+		}
+		
+		return v.toArray(new DbInstrumentInfo[v.size()]);
+	}
+	
+	private int[]
+	findByPrefix(String prefix) {
+		SortedMap<String, int[]> m = TextIndexUtils.getPrefixMap(index, prefix);
+		if(m.size() == 1) return m.values().iterator().next();
+		
+		IntList l = new IntList();
+		for(int[] ids : m.values()) for(int id : ids) l.add(id);
+		
+		int[] ids = l.toArray();
+		Arrays.sort(ids);
+		
+		// remove the duplicates
+		int n = 0;
+		for(int i = 0; i < ids.length; i++) {
+			if(n == 0 || ids[n - 1] != ids[i]) ids[n++] = ids[i];
+		}
+		
+		return Arrays.copyOf(ids, n);
+	}
+	
+	private static int[]
+	intersect(int[] a, int[] b) {
+		int[] r = new int[Math.min(a.length, b.length)];
+		int i = 0, j = 0, n = 0;
+		while(i < a.length && j < b.length) {
+			if(a[i] < b[j]) i++;
+			else if(a[i] > b[j]) j++;
+			else { r[n++] = a[i]; i++; j++; }
+		}
+		
+		return Arrays.copyOf(r, n);
+	}
+	
+	/**
+	 * Creates the information of the specified instrument. The stored values
+	 * are already decoded, so they are set as they are, without being parsed.
+	 */
+	private DbInstrumentInfo
+	createInstrumentInfo(int id) {
+		DbInstrumentInfo info = new DbInstrumentInfo();
+		info.setName(getValue(NAME, id));
+		info.setDirectoryPath(getValue(DIRECTORY, id));
+		info.setFilePath(getValue(FILE_PATH, id));
+		info.setInstrumentIndex(buffer.getInt(instrumentIndexPos + id * 4));
+		info.setFormatFamily(getValue(FORMAT_FAMILY, id));
+		info.setFormatVersion(getValue(FORMAT_VERSION, id));
+		info.setSize(buffer.getLong(sizePos + id * 8));
+		info.setDescription(getValue(DESCRIPTION, id));
+		info.setProduct(getValue(PRODUCT, id));
+		info.setArtists(getValue(ARTISTS, id));
+		info.setKeywords(getValue(KEYWORDS, id));
+		return info;
+	}
+	
+	/**
+	 * Finds the newest snapshot in the specified directory.
+	 * @return The newest snapshot file, or <code>null</code> if there is no snapshot.
+	 */
+	public static File
+	findLatest(File dir) {
+		File latest = null;
+		long version = -1;
+		
+		File[] files = dir.listFiles();
+		if(files == null) return null;
+		
+		for(File f : files) {
+			long l = getVersion(f);
+			if(l > version && f.isFile()) {
+				latest = f;
+				version = l;
+			}
+		}
+		
+		return latest;
+	}
+	
+	/**
+	 * Gets the version of the specified snapshot file, which is the time
+	 * of its creation encoded in its name.
+	 * @return The version, or -1 if the file is not a snapshot.
+	 */
+	private static long
+	getVersion(File f) {
+		String s = f.getName();
+		if(!s.startsWith(FILE_PREFIX) || !s.endsWith(FILE_EXTENSION)) return -1;
+		
+		s = s.substring(FILE_PREFIX.length(), s.length() - FILE_EXTENSION.length());
+		try { return Long.parseLong(s); }
+		catch(NumberFormatException x) { return -1; }
+	}
+	
+	/**
+	 * Removes the snapshots in the specified directory which are older than
+	 * the specified one, and the temporary files of failed exports.
+	 * A file which is still mapped can't be removed on some platforms,
+	 * so it is left for the next update.
+	 */
+	public static void
+	deleteOlder(File dir, File snapshot) {
+		long version = getVersion(snapshot);
+		
+		File[] files = dir.listFiles();
+		if(files == null) return;
+		
+		for(File f : files) {
+			String s = f.getName();
+			boolean tmp = s.startsWith(FILE_PREFIX) && s.endsWith(FILE_EXTENSION + ".tmp");
+			long l = getVersion(f);
+			if(!tmp && (l == -1 || l >= version)) continue;
+			
+			if(!f.delete()) CC.getLogger().fine("Failed to remove the old snapshot " + f);
+		}
+	}
+	
+	/**
+	 * Reads the whole instruments database through the task queue.
+	 * The result is the number of exported instruments. The collected
+	 * database is written to a snapshot file with {@link #write}, which
+	 * doesn't use the back-end and should be invoked outside the task queue.
+	 */
+	public static class Export extends EnhancedTask<Integer> {
+		private Writer writer = null;
+		
+		/** Creates a new instance of <code>Export</code>. */
+		public
+		Export() {
+			setTitle("InstrumentsDbSnapshot.Export_task");
+			setDescription(i18n.getMessage("InstrumentsDbSnapshot.Export.desc"));
+		}
+		
+		@Override
+		public void
+		exec() throws Exception {
+			long time = System.nanoTime();
+			
+			Writer w = new Writer();
+			w.exportDirectory("/");
+			writer = w;
+			
+			time = (System.nanoTime() - time) / 1000000;
+			CC.getLogger().info (
+				"Read " + w.instrumentCount + " instruments from the database in " + time + "ms"
+			);
+			
+			setResult(w.instrumentCount);
+		}
+		
+		/**
+		 * Writes the collected database to a new snapshot file in the specified
+		 * directory. The name of the file contains its version, so the snapshot
+		 * in use is never overwritten. The file is written under a temporary
+		 * name first, which is removed if the write fails. This method may
+		 * take a long time and should not be invoked on the event-dispatching thread.
+		 * @param dir The directory in which to create the snapshot.
+		 * @return The new snapshot file.
+		 * @throws IOException If an I/O error occurs.
+		 */
+		public File
+		write(File dir) throws IOException {
+			if(writer == null) throw new IllegalStateException("The database is not read");
+			long time = System.nanoTime();
+			
+			long version = System.currentTimeMillis();
+			File latest = findLatest(dir);
+			if(latest != null) version = Math.max(version, getVersion(latest) + 1);
+			
+			File file = new File(dir, FILE_PREFIX + version + FILE_EXTENSION);
+			File tmp = new File(file.getPath() + ".tmp");
+			
+			try {
+				writer.write(tmp);
+				Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch(IOException x) {
+				tmp.delete();
+				throw x;
+			}
+			
+			time = (System.nanoTime() - time) / 1000000;
+			CC.getLogger().info (
+				"Exported " + writer.instrumentCount + " instruments to " + file + " in " + time + "ms"
+			);
+			
+			return file;
+		}
+	}
+	
+	/** Collects the instruments database and writes it in the snapshot format. */
+	private static class Writer {
+		private final HashMap<String, Integer> stringIds = new HashMap<String, Integer>();
+		private final Vector<String> strings = new Vector<String>();
+		
+		private final IntList[] columns = new IntList[STRING_COLUMN_COUNT];
+		private final IntList instrumentIndexes = new IntList();
+		private final Vector<Long> sizes = new Vector<Long>();
+		
+		int instrumentCount = 0;
+		
+		Writer() {
+			for(int i = 0; i < columns.length; i++) columns[i] = new IntList();
+		}
+		
+		private int
+		getStringId(String s) {
+			if(s == null) s = "";
+			Integer id = stringIds.get(s);
+			if(id != null) return id;
+			
+			stringIds.put(s, strings.size());
+			strings.add(s);
+			return strings.size() - 1;
+		}
+		
+		void
+		exportDirectory(String path) throws IOException, LscpException, LSException {
+			for(DbInstrumentInfo i : CC.getClient().getDbInstruments(path)) {
+				columns[NAME].add(getStringId(i.getName()));
+				columns[DIRECTORY].add(getStringId(path));
+				columns[FILE_PATH].add(getStringId(i.getFilePath()));
+				columns[FORMAT_FAMILY].add(getStringId(i.getFormatFamily()));
+				columns[FORMAT_VERSION].add(getStringId(i.getFormatVersion()));
+				columns[DESCRIPTION].add(getStringId(i.getDescription()));
+				columns[PRODUCT].add(getStringId(i.getProduct()));
+				columns[ARTISTS].add(getStringId(i.getArtists()));
+				columns[KEYWORDS].add(getStringId(i.getKeywords()));
+				instrumentIndexes.add(i.getInstrumentIndex());
+				sizes.add(i.getSize());
+				instrumentCount++;
+			}
+			
+			for(DbDirectoryInfo d : CC.getClient().getDbDirectories(path)) {
+				exportDirectory(d.getDirectoryPath());
+			}
+		}
+		
+		void
+		write(File file) throws IOException {
+			DataOutputStream out = new DataOutputStream (
+				new BufferedOutputStream(new FileOutputStream(file))
+			);
+			
+			try {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeLong(System.currentTimeMillis());
+				
+				byte[][] data = new byte[strings.size()][];
+				for(int i = 0; i < data.length; i++) {
+					data[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+				}
+				
+				out.writeInt(data.length);
+				int offset = 0;
+				for(byte[] b : data) {
+					out.writeInt(offset);
+					offset += b.length;
+				}
+				out.writeInt(offset);
+				for(byte[] b : data) out.write(b);
+				
+				out.writeInt(instrumentCount);
+				for(IntList l : columns) {
+					for(int i = 0; i < instrumentCount; i++) out.writeInt(l.get(i));
+				}
+				for(int i = 0; i < instrumentCount; i++) out.writeInt(instrumentIndexes.get(i));
+				for(int i = 0; i < instrumentCount; i++) out.writeLong(sizes.get(i));
+			} finally {
+				out.close();
+			}
+		}
+	}
+	
+	/** A growable array of <code>int</code> values. */
+	private static class IntList {
+		private int[] values = new int[4];
+		private int size = 0;
+		
+		void
+		add(int value) {
+			if(size == values.length) values = Arrays.copyOf(values, size * 2);
+			values[size++] = value;
+		}
+		
+		int
+		get(int index) { return values[index]; }
+		
+		int[]
+		toArray() { return Arrays.copyOf(values, size); }
+	}
+}
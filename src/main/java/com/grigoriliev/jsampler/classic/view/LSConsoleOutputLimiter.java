@@ -0,0 +1,143 @@
+/*
+ *   JSampler - a front-end for LinuxSampler
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of JSampler.
+ *
+ *   JSampler is free software: you can redistribute it and/or modify it under
+ *   the terms of the GNU General Public License as published by the Free
+ *   Software Foundation, either version 3 of the License, or (at your option)
+ *   any later version.
+ *
+ *   JSampler is distributed in the hope that it will be useful, but WITHOUT
+ *   ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *   FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ *   more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with JSampler. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.grigoriliev.jsampler.classic.view;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+
+import java.util.logging.Level;
+
+import javax.swing.SwingUtilities;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.JTextComponent;
+
+import com.grigoriliev.jsampler.CC;
+
+
+/**
+ * Keeps the number of lines in the LS console output within a fixed limit,
+ * so that the console works like a ring buffer. The oldest lines are removed
+ * in batches, once the limit is exceeded by more than an eighth, so that
+ * the cost of the removal and the relayout is amortized over the appended lines.
+ * The text is removed after the current document event is processed,
+ * since a document can't be modified while notifying its listeners.
+ * @author Grigor Iliev
+ */
+class LSConsoleOutputLimiter implements DocumentListener, PropertyChangeListener, Runnable {
+	private final JTextComponent output;
+	private Document document;
+	private int maxLines;
+	private boolean trimScheduled = false;
+	
+	/**
+	 * Creates a new instance of <code>LSConsoleOutputLimiter</code>.
+	 * @param output The text component showing the console output.
+	 * @param maxLines The maximum number of lines to keep,
+	 * or <code>0</code> for unlimited output.
+	 */
+	LSConsoleOutputLimiter(JTextComponent output, int maxLines) {
+		this.output = output;
+		this.maxLines = maxLines;
+		
+		document = output.getDocument();
+		document.addDocumentListener(this);
+		output.addPropertyChangeListener("document", this);
+		
+		checkLineCount();
+	}
+	
+	/** Gets the maximum number of lines to keep, or <code>0</code> if unlimited. */
+	public int
+	getMaxLines() { return maxLines; }
+	
+	/**
+	 * Sets the maximum number of lines to keep.
+	 * @param maxLines The maximum number of lines, or <code>0</code> for unlimited output.
+	 */
+	public void
+	setMaxLines(int maxLines) {
+		this.maxLines = maxLines;
+		if(maxLines > 0 && getLineCount() > maxLines) scheduleTrim();
+	}
+	
+	private int
+	getLineCount() { return document.getDefaultRootElement().getElementCount(); }
+	
+	private void
+	checkLineCount() {
+		if(maxLines == 0) return;
+		if(getLineCount() <= maxLines + Math.max(1, maxLines / 8)) return;
+		scheduleTrim();
+	}
+	
+	private void
+	scheduleTrim() {
+		if(trimScheduled) return;
+		trimScheduled = true;
+		SwingUtilities.invokeLater(this);
+	}
+	
+	/** Removes the oldest lines exceeding the limit. */
+	@Override
+	public void
+	run() {
+		trimScheduled = false;
+		if(maxLines == 0) return;
+		
+		Element root = document.getDefaultRootElement();
+		int excess = root.getElementCount() - maxLines;
+		if(excess <= 0) return;
+		
+		try { document.remove(0, root.getElement(excess).getStartOffset()); }
+		catch(BadLocationException e) {
+			CC.getLogger().log(Level.INFO, "Failed to trim the LS console output", e);
+		}
+	}
+	
+	@Override
+	public void
+	insertUpdate(DocumentEvent e) { checkLineCount(); }
+	
+	@Override
+	public void
+	removeUpdate(DocumentEvent e) { }
+	
+	@Override
+	public void
+	changedUpdate(DocumentEvent e) { }
+	
+	/** Invoked when the document of the output component is replaced. */
+	@Override
+	public void
+	propertyChange(PropertyChangeEvent e) {
+		document.removeDocumentListener(this);
+		document = output.getDocument();
+		document.addDocumentListener(this);
+		checkLineCount();
+	}
+}
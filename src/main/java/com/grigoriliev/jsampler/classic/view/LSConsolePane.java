@@ -21,6 +21,8 @@
 
 package com.grigoriliev.jsampler.classic.view;
 
+import java.awt.Component;
+import java.awt.Container;
 import java.awt.Dimension;
 import java.awt.Window;
 
@@ -37,9 +39,16 @@ import javax.swing.JMenu;
 import javax.swing.JMenuItem;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
 
 import javax.swing.border.EtchedBorder;
 
+import javax.swing.text.JTextComponent;
+
+import com.grigoriliev.jsampler.CC;
+import com.grigoriliev.jsampler.LSConsoleModel;
+
 import com.grigoriliev.jsampler.swing.view.SHF;
 import com.grigoriliev.jsampler.swing.view.std.JSLSConsolePane;
 import com.grigoriliev.jsampler.swing.view.std.JSLscpScriptDlg;
@@ -53,9 +62,16 @@ import static com.grigoriliev.jsampler.classic.view.ClassicI18n.i18n;
 public class LSConsolePane extends JSLSConsolePane {
 	private final JButton btnMenu = new ToolbarButton();
 	private JPopupMenu menu = new JPopupMenu();
+	private final JMenuItem miRunScript =
+		new JMenuItem(i18n.getMenuLabel("LSConsolePane.runScript"));
 	
 	private final LSConsoleViewMode lsConsoleViewMode;
 	
+	private LSConsoleOutputLimiter outputLimiter = null;
+	
+	/** The text field of the command line, or <code>null</code> if it is not found. */
+	private final JTextField commandLine;
+	
 	
 	/**
 	 * Creates a new instance of <code>LSConsolePane</code>
@@ -81,6 +97,94 @@ public class LSConsolePane extends JSLSConsolePane {
 		add(p, java.awt.BorderLayout.NORTH);
 		
 		initMenu(owner);
+		
+		commandLine = findCommandLine();
+		if(commandLine == null) CC.getLogger().warning("LS console command line not found");
+		
+		JTextComponent output = findOutput(this);
+		if(output == null) {
+			CC.getLogger().warning("LS console output not found, the output is unlimited");
+		} else {
+			int i = ClassicPrefs.getLSConsoleMaxLines();
+			outputLimiter = new LSConsoleOutputLimiter(output, i);
+		}
+	}
+	
+	/**
+	 * Finds the text component showing the console output, which is
+	 * the text component scrolled by a scroll pane in the specified container.
+	 * The command line is a text field which is not scrolled.
+	 */
+	private static JTextComponent
+	findOutput(Container c) {
+		for(Component comp : c.getComponents()) {
+			if(comp instanceof JScrollPane) {
+				Component view = ((JScrollPane)comp).getViewport().getView();
+				if(view instanceof JTextComponent) return (JTextComponent)view;
+			}
+			
+			if(comp instanceof Container) {
+				JTextComponent tc = findOutput((Container)comp);
+				if(tc != null) return tc;
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Sets the maximum number of lines kept in the console output.
+	 * @param maxLines The maximum number of lines, or <code>0</code> for unlimited output.
+	 */
+	public void
+	setOutputMaxLines(int maxLines) {
+		if(outputLimiter != null) outputLimiter.setMaxLines(maxLines);
+	}
+	
+	/**
+	 * Disables the running of scripts and the command line
+	 * while a script is executed through this console.
+	 * @param b Specifies whether a script is running.
+	 */
+	public void
+	setScriptRunning(boolean b) {
+		miRunScript.setEnabled(!b);
+		if(commandLine != null) commandLine.setEnabled(!b);
+	}
+	
+	/**
+	 * Finds the command line, which is the text field showing the command line
+	 * text of the console model. The text of the model is changed for a moment,
+	 * and the field to which the change is propagated is the command line.
+	 */
+	private JTextField
+	findCommandLine() {
+		LSConsoleModel model = getModel();
+		String text = model.getCommandLineText();
+		String probe = "#" + getClass().getName() + "@" + System.identityHashCode(this);
+		
+		model.setCommandLineText(probe);
+		JTextField tf = findTextField(this, probe);
+		model.setCommandLineText(text);
+		
+		return tf;
+	}
+	
+	/** Finds the text field in the specified container which shows the specified text. */
+	private static JTextField
+	findTextField(Container c, String text) {
+		for(Component comp : c.getComponents()) {
+			if(comp instanceof JTextField && text.equals(((JTextField)comp).getText())) {
+				return (JTextField)comp;
+			}
+			
+			if(comp instanceof Container) {
+				JTextField tf = findTextField((Container)comp, text);
+				if(tf != null) return tf;
+			}
+		}
+		
+		return null;
 	}
 	
 	private void
@@ -128,15 +232,16 @@ public class LSConsolePane extends JSLSConsolePane {
 		
 		menu.add(exportMenu);
 		
-		mi = new JMenuItem(i18n.getMenuLabel("LSConsolePane.runScript"));
-		menu.add(mi);
-		mi.addActionListener(new ActionListener() {
+		menu.add(miRunScript);
+		miRunScript.addActionListener(new ActionListener() {
 			public void
 			actionPerformed(ActionEvent e) {
 				((MainFrame)SHF.getMainFrame()).runScript();
 			}
 		});
 		
+		menu.add(new JMenuItem(A4n.validateScript));
+		
 		btnMenu.addActionListener(new ActionListener() {
 			public void
 			actionPerformed(ActionEvent e) {
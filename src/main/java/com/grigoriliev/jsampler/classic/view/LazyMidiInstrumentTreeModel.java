@@ -0,0 +1,320 @@
+/*
+ *   JSampler - a front-end for LinuxSampler
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of JSampler.
+ *
+ *   JSampler is free software: you can redistribute it and/or modify it under
+ *   the terms of the GNU General Public License as published by the Free
+ *   Software Foundation, either version 3 of the License, or (at your option)
+ *   any later version.
+ *
+ *   JSampler is distributed in the hope that it will be useful, but WITHOUT
+ *   ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *   FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ *   more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with JSampler. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.grigoriliev.jsampler.classic.view;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Vector;
+
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+
+import com.grigoriliev.jsampler.MidiInstrument;
+import com.grigoriliev.jsampler.MidiInstrumentMap;
+import com.grigoriliev.jsampler.event.MidiInstrumentMapEvent;
+import com.grigoriliev.jsampler.event.MidiInstrumentMapListener;
+
+import static com.grigoriliev.jsampler.classic.view.ClassicI18n.i18n;
+
+
+/**
+ * A tree model of a MIDI instrument map, which groups the instruments by MIDI bank.
+ * Only the bank numbers and the number of instruments in each bank are
+ * determined when the model is created. The instruments of all banks are
+ * retrieved in a single pass over the map, when a bank is first expanded.
+ * The model is kept in sync with the map by incremental events, until
+ * {@link #uninstall} is invoked.
+ * The root is the map and the leaves are <code>MidiInstrument</code> objects.
+ * @author Grigor Iliev
+ */
+class LazyMidiInstrumentTreeModel implements TreeModel {
+	private final MidiInstrumentMap map;
+	
+	/** The banks of the map, sorted by bank number. */
+	private final Vector<Bank> banks = new Vector<Bank>();
+	
+	private final EventListenerList listenerList = new EventListenerList();
+	private final Handler handler = new Handler();
+	
+	/**
+	 * Creates a new instance of <code>LazyMidiInstrumentTreeModel</code>.
+	 * @param map The MIDI instrument map to be represented by this model.
+	 */
+	LazyMidiInstrumentTreeModel(MidiInstrumentMap map) {
+		this.map = map;
+		
+		for(MidiInstrument instr : map.getAllMidiInstruments()) {
+			int bank = instr.getInfo().getMidiBank();
+			int idx = findBank(bank);
+			if(idx < 0) {
+				idx = -idx - 1;
+				banks.insertElementAt(new Bank(bank), idx);
+			}
+			banks.get(idx).size++;
+		}
+		
+		map.addMidiInstrumentMapListener(handler);
+	}
+	
+	/** Gets the MIDI instrument map represented by this model. */
+	public MidiInstrumentMap
+	getMidiInstrumentMap() { return map; }
+	
+	/** Stops the tracking of the changes in the MIDI instrument map. */
+	public void
+	uninstall() { map.removeMidiInstrumentMapListener(handler); }
+	
+	/**
+	 * Searches for the specified bank number.
+	 * @return The index of the bank, or <code>(-(insertion point) - 1)</code>
+	 * if the map has no instruments in the specified bank.
+	 */
+	private int
+	findBank(int bank) {
+		int lo = 0, hi = banks.size() - 1;
+		while(lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int b = banks.get(mid).getNumber();
+			if(b < bank) lo = mid + 1;
+			else if(b > bank) hi = mid - 1;
+			else return mid;
+		}
+		
+		return -(lo + 1);
+	}
+	
+	@Override
+	public Object
+	getRoot() { return map; }
+	
+	@Override
+	public Object
+	getChild(Object parent, int index) {
+		if(parent == map) return banks.get(index);
+		return ((Bank)parent).getInstruments().get(index);
+	}
+	
+	@Override
+	public int
+	getChildCount(Object parent) {
+		if(parent == map) return banks.size();
+		if(parent instanceof Bank) return ((Bank)parent).size;
+		return 0;
+	}
+	
+	@Override
+	public boolean
+	isLeaf(Object node) { return node instanceof MidiInstrument; }
+	
+	@Override
+	public int
+	getIndexOfChild(Object parent, Object child) {
+		if(parent == null || child == null) return -1;
+		
+		if(parent == map) {
+			if(!(child instanceof Bank)) return -1;
+			return banks.indexOf(child);
+		}
+		
+		if(!(parent instanceof Bank) || !(child instanceof MidiInstrument)) return -1;
+		return ((Bank)parent).getInstruments().indexOf(child);
+	}
+	
+	@Override
+	public void
+	valueForPathChanged(TreePath path, Object newValue) { }
+	
+	@Override
+	public void
+	addTreeModelListener(TreeModelListener l) {
+		listenerList.add(TreeModelListener.class, l);
+	}
+	
+	@Override
+	public void
+	removeTreeModelListener(TreeModelListener l) {
+		listenerList.remove(TreeModelListener.class, l);
+	}
+	
+	/**
+	 * Retrieves the instruments of all banks, which are not retrieved yet,
+	 * in a single pass over the map.
+	 */
+	private void
+	loadBanks() {
+		HashMap<Integer, Vector<MidiInstrument>> buckets =
+			new HashMap<Integer, Vector<MidiInstrument>>();
+		
+		for(Bank bank : banks) {
+			if(bank.isLoaded()) continue;
+			buckets.put(bank.getNumber(), new Vector<MidiInstrument>(bank.size));
+		}
+		
+		for(MidiInstrument instr : map.getAllMidiInstruments()) {
+			Vector<MidiInstrument> v = buckets.get(instr.getInfo().getMidiBank());
+			if(v != null) v.add(instr);
+		}
+		
+		for(Bank bank : banks) {
+			Vector<MidiInstrument> v = buckets.get(bank.getNumber());
+			if(v == null) continue;
+			
+			Collections.sort(v, MidiInstrumentIndex.programComparator);
+			bank.instruments = v;
+			bank.size = v.size();
+		}
+	}
+	
+	private void
+	fireNodeInserted(Object[] path, int index, Object child) {
+		TreeModelEvent e =
+			new TreeModelEvent(this, path, new int[] { index }, new Object[] { child });
+		Object[] listeners = listenerList.getListenerList();
+		for(int i = listeners.length - 2; i >= 0; i -= 2) {
+			((TreeModelListener)listeners[i + 1]).treeNodesInserted(e);
+		}
+	}
+	
+	private void
+	fireNodeRemoved(Object[] path, int index, Object child) {
+		TreeModelEvent e =
+			new TreeModelEvent(this, path, new int[] { index }, new Object[] { child });
+		Object[] listeners = listenerList.getListenerList();
+		for(int i = listeners.length - 2; i >= 0; i -= 2) {
+			((TreeModelListener)listeners[i + 1]).treeNodesRemoved(e);
+		}
+	}
+	
+	/** Represents a MIDI bank which contains at least one instrument. */
+	class Bank {
+		private final int number;
+		
+		/** The number of instruments in this bank, known even if they are not retrieved. */
+		private int size = 0;
+		
+		/** The instruments sorted by program, or <code>null</code> if not retrieved yet. */
+		private Vector<MidiInstrument> instruments = null;
+		
+		Bank(int number) { this.number = number; }
+		
+		/** Gets the MIDI bank number. */
+		public int
+		getNumber() { return number; }
+		
+		/** Determines whether the instruments of this bank are retrieved. */
+		boolean
+		isLoaded() { return instruments != null; }
+		
+		/** Gets the instruments of this bank, sorted by program. */
+		Vector<MidiInstrument>
+		getInstruments() {
+			if(instruments == null) loadBanks();
+			return instruments;
+		}
+		
+		/**
+		 * Gets the position at which an instrument with the specified program
+		 * should be inserted, in the list of the retrieved instruments.
+		 */
+		int
+		findProgram(int program) {
+			int lo = 0, hi = instruments.size() - 1;
+			while(lo <= hi) {
+				int mid = (lo + hi) >>> 1;
+				if(instruments.get(mid).getInfo().getMidiProgram() < program) lo = mid + 1;
+				else hi = mid - 1;
+			}
+			
+			return lo;
+		}
+		
+		@Override
+		public String
+		toString() { return i18n.getLabel("LazyMidiInstrumentTreeModel.bank", number); }
+	}
+	
+	private class Handler implements MidiInstrumentMapListener {
+		/** Invoked when the name of MIDI instrument map is changed. */
+		@Override
+		public void
+		nameChanged(MidiInstrumentMapEvent e) { }
+		
+		/** Invoked when an instrument is added to a MIDI instrument map. */
+		@Override
+		public void
+		instrumentAdded(MidiInstrumentMapEvent e) {
+			MidiInstrument instr = e.getInstrument();
+			int idx = findBank(instr.getInfo().getMidiBank());
+			
+			if(idx < 0) {
+				idx = -idx - 1;
+				Bank bank = new Bank(instr.getInfo().getMidiBank());
+				bank.size = 1;
+				banks.insertElementAt(bank, idx);
+				fireNodeInserted(new Object[] { map }, idx, bank);
+				return;
+			}
+			
+			Bank bank = banks.get(idx);
+			if(!bank.isLoaded()) {
+				bank.size++;
+				return;
+			}
+			
+			int i = bank.findProgram(instr.getInfo().getMidiProgram());
+			bank.instruments.insertElementAt(instr, i);
+			bank.size++;
+			fireNodeInserted(new Object[] { map, bank }, i, instr);
+		}
+		
+		/** Invoked when an instrument is removed from a MIDI instrument map. */
+		@Override
+		public void
+		instrumentRemoved(MidiInstrumentMapEvent e) {
+			MidiInstrument instr = e.getInstrument();
+			int idx = findBank(instr.getInfo().getMidiBank());
+			if(idx < 0) return;
+			
+			Bank bank = banks.get(idx);
+			if(bank.size <= 1) {
+				banks.removeElementAt(idx);
+				fireNodeRemoved(new Object[] { map }, idx, bank);
+				return;
+			}
+			
+			if(!bank.isLoaded()) {
+				bank.size--;
+				return;
+			}
+			
+			int i = bank.instruments.indexOf(instr);
+			if(i == -1) return;
+			bank.instruments.removeElementAt(i);
+			bank.size--;
+			fireNodeRemoved(new Object[] { map, bank }, i, instr);
+		}
+	}
+}
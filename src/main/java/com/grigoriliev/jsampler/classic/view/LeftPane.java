@@ -21,23 +21,57 @@
 
 package com.grigoriliev.jsampler.classic.view;
 
+import java.awt.BorderLayout;
+
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+
 import com.grigoriliev.jsampler.juife.swing.NavigationPage;
 import com.grigoriliev.jsampler.juife.swing.NavigationPane;
 
+import com.grigoriliev.jsampler.CC;
+
+import static com.grigoriliev.jsampler.classic.view.ClassicI18n.i18n;
+
 
 /**
- *
+ * The left pane of the main frame. The navigation pages are created
+ * when they are shown for the first time.
  * @author Grigor Iliev
  */
 public class LeftPane extends NavigationPane {
 	private final static LeftPane leftPane = new LeftPane();
 	
-	private TasksPage tasksPage = new TasksPage();
-	private MidiDevicesPage midiDevicesPage = new MidiDevicesPage();
-	private AudioDevicesPage audioDevicesPage = new AudioDevicesPage();
-	private OrchestrasPage orchestrasPage = new OrchestrasPage();
-	private ManageOrchestrasPage manageOrchestrasPage = new ManageOrchestrasPage();
-	private MidiInstrumentMapsPage midiInstrumentMapsPage = new MidiInstrumentMapsPage();
+	private final LazyPage tasksPage = new LazyPage("TasksPage.title") {
+		protected NavigationPage
+		createPage() { return new TasksPage(); }
+	};
+	
+	private final LazyPage midiDevicesPage = new LazyPage("MidiDevicesPage.title") {
+		protected NavigationPage
+		createPage() { return new MidiDevicesPage(); }
+	};
+	
+	private final LazyPage audioDevicesPage = new LazyPage("AudioDevicesPage.title") {
+		protected NavigationPage
+		createPage() { return new AudioDevicesPage(); }
+	};
+	
+	private final LazyPage orchestrasPage = new LazyPage("OrchestrasPage.title") {
+		protected NavigationPage
+		createPage() { return createOrchestrasPage(); }
+	};
+	
+	private final LazyPage manageOrchestrasPage = new LazyPage("ManageOrchestrasPage.title") {
+		protected NavigationPage
+		createPage() { return new ManageOrchestrasPage(); }
+	};
+	
+	private final LazyPage midiInstrumentMapsPage =
+		new LazyPage("MidiInstrumentMapsPage.title") {
+			protected NavigationPage
+			createPage() { return new MidiInstrumentMapsPage(); }
+		};
 	
 	/** Creates a new instance of LeftPane */
 	private
@@ -58,8 +92,31 @@ public class LeftPane extends NavigationPane {
 	public static LeftPane
 	getLeftPane() { return leftPane; }
 	
+	/** Gets the <code>OrchestrasPage</code>, creating it if needed. */
 	public OrchestrasPage
-	getOrchestrasPage() { return orchestrasPage; }
+	getOrchestrasPage() { return (OrchestrasPage)orchestrasPage.getPage(); }
+	
+	/** Determines whether the <code>OrchestrasPage</code> is already created. */
+	public boolean
+	isOrchestrasPageCreated() { return orchestrasPage.isPageCreated(); }
+	
+	/**
+	 * Creates the <code>OrchestrasPage</code> and selects
+	 * the orchestra saved in the preferences, if any.
+	 */
+	private static OrchestrasPage
+	createOrchestrasPage() {
+		OrchestrasPage page = new OrchestrasPage();
+		
+		if(ClassicPrefs.getSaveLeftPaneState()) {
+			int idx = ClassicPrefs.getCurrentOrchestraIndex();
+			if(idx >= 0 && idx < CC.getOrchestras().getOrchestraCount()) {
+				page.setSelectedOrchestra(CC.getOrchestras().getOrchestra(idx));
+			}
+		}
+		
+		return page;
+	}
 	
 	/** Shows the <code>TasksPage</code> in the left pane. */
 	public void
@@ -84,4 +141,46 @@ public class LeftPane extends NavigationPane {
 	/** Shows the <code>MidiInstrumentMapsPage</code> in the left pane. */
 	public void
 	showMidiInstrumentMapsPage() { getModel().addPage(midiInstrumentMapsPage); }
+	
+	/**
+	 * A placeholder navigation page, which creates the actual page
+	 * and shows it as its content when the placeholder is shown for the first time.
+	 */
+	private static abstract class LazyPage extends NavigationPage implements HierarchyListener {
+		private NavigationPage page = null;
+		
+		LazyPage(String titleKey) {
+			setTitle(i18n.getLabel(titleKey));
+			setLayout(new BorderLayout());
+			addHierarchyListener(this);
+		}
+		
+		/** Creates the actual page. */
+		protected abstract NavigationPage createPage();
+		
+		/** Gets the actual page, creating it if needed. */
+		public NavigationPage
+		getPage() {
+			if(page == null) {
+				page = createPage();
+				removeHierarchyListener(this);
+				add(page);
+				revalidate();
+				repaint();
+			}
+			
+			return page;
+		}
+		
+		/** Determines whether the actual page is already created. */
+		public boolean
+		isPageCreated() { return page != null; }
+		
+		@Override
+		public void
+		hierarchyChanged(HierarchyEvent e) {
+			if((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) == 0) return;
+			if(isShowing()) getPage();
+		}
+	}
 }
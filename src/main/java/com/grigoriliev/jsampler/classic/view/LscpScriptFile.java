@@ -0,0 +1,158 @@
+/*
+ *   JSampler - a front-end for LinuxSampler
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of JSampler.
+ *
+ *   JSampler is free software: you can redistribute it and/or modify it under
+ *   the terms of the GNU General Public License as published by the Free
+ *   Software Foundation, either version 3 of the License, or (at your option)
+ *   any later version.
+ *
+ *   JSampler is distributed in the hope that it will be useful, but WITHOUT
+ *   ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *   FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ *   more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with JSampler. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.grigoriliev.jsampler.classic.view;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * Provides random access to the lines of an LSCP script. When opened, the file
+ * is scanned once in fixed-size chunks to build an index with the offset
+ * of each line. Afterwards any range of lines can be read without holding
+ * the whole file in memory.
+ * @author Grigor Iliev
+ */
+class LscpScriptFile implements Closeable {
+	private final static int BUFFER_SIZE = 64 * 1024;
+	
+	private final File file;
+	private final FileChannel channel;
+	private final long size;
+	private final Charset charset = Charset.defaultCharset();
+	
+	private long[] offsets = new long[1024];
+	private int lineCount = 0;
+	
+	/**
+	 * Opens the specified script and builds its line index.
+	 * @param file The script file.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	LscpScriptFile(File file) throws IOException {
+		this.file = file;
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		
+		try { size = buildIndex(); }
+		catch(IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	private long
+	buildIndex() throws IOException {
+		ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		long pos = 0;
+		boolean lineStart = true;
+		
+		while(channel.read(buf, pos) != -1) {
+			buf.flip();
+			int n = buf.limit();
+			for(int i = 0; i < n; i++) {
+				if(lineStart) {
+					addOffset(pos + i);
+					lineStart = false;
+				}
+				
+				if(buf.get(i) == '\n') lineStart = true;
+			}
+			
+			pos += n;
+			buf.clear();
+		}
+		
+		return pos;
+	}
+	
+	private void
+	addOffset(long offset) {
+		if(lineCount == offsets.length) {
+			long[] a = new long[offsets.length * 2];
+			System.arraycopy(offsets, 0, a, 0, lineCount);
+			offsets = a;
+		}
+		
+		offsets[lineCount++] = offset;
+	}
+	
+	/** Gets the script file. */
+	public File
+	getFile() { return file; }
+	
+	/** Gets the number of lines in the script. */
+	public int
+	getLineCount() { return lineCount; }
+	
+	/**
+	 * Gets the offset in bytes of the specified line.
+	 * @param line The zero-based line number.
+	 */
+	public long
+	getLineOffset(int line) { return line == lineCount ? size : offsets[line]; }
+	
+	/**
+	 * Reads the specified range of lines. The line terminators are removed.
+	 * @param from The zero-based number of the first line to read.
+	 * @param count The maximum number of lines to read.
+	 * @return The lines read, which are fewer than <code>count</code>
+	 * if the end of the script is reached.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	public String[]
+	readLines(int from, int count) throws IOException {
+		if(from < 0 || from > lineCount) throw new IndexOutOfBoundsException("" + from);
+		
+		count = Math.min(count, lineCount - from);
+		String[] lines = new String[count];
+		if(count == 0) return lines;
+		
+		long start = getLineOffset(from);
+		ByteBuffer buf = ByteBuffer.allocate((int)(getLineOffset(from + count) - start));
+		while(buf.hasRemaining()) {
+			if(channel.read(buf, start + buf.position()) == -1) break;
+		}
+		
+		byte[] b = buf.array();
+		for(int i = 0; i < count; i++) {
+			int off = (int)(getLineOffset(from + i) - start);
+			int end = (int)(getLineOffset(from + i + 1) - start);
+			
+			if(end > off && b[end - 1] == '\n') end--;
+			if(end > off && b[end - 1] == '\r') end--;
+			lines[i] = new String(b, off, end - off, charset);
+		}
+		
+		return lines;
+	}
+	
+	/** Closes the script file. */
+	@Override
+	public void
+	close() throws IOException { channel.close(); }
+}
@@ -0,0 +1,380 @@
+/*
+ *   JSampler - a front-end for LinuxSampler
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of JSampler.
+ *
+ *   JSampler is free software: you can redistribute it and/or modify it under
+ *   the terms of the GNU General Public License as published by the Free
+ *   Software Foundation, either version 3 of the License, or (at your option)
+ *   any later version.
+ *
+ *   JSampler is distributed in the hope that it will be useful, but WITHOUT
+ *   ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *   FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ *   more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with JSampler. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.grigoriliev.jsampler.classic.view;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.file.NoSuchFileException;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+
+import java.util.logging.Level;
+
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.WindowConstants;
+
+import com.grigoriliev.jsampler.CC;
+import com.grigoriliev.jsampler.LSConsoleModel;
+import com.grigoriliev.jsampler.event.LSConsoleEvent;
+import com.grigoriliev.jsampler.event.LSConsoleListener;
+import com.grigoriliev.jsampler.swing.view.SHF;
+
+import static com.grigoriliev.jsampler.classic.view.ClassicI18n.i18n;
+
+
+/**
+ * Executes an LSCP script without blocking the event-dispatching thread.
+ * The script is read by a background thread through a {@link LscpScriptFile}
+ * and the commands are passed in batches to the LS console on the
+ * event-dispatching thread. At most {@link #MAX_IN_FLIGHT} commands can be
+ * in flight, that is read from the script and either not yet passed to the
+ * LS console or sent to the back-end and not answered yet. A command is
+ * considered answered when the LS console reports its whole response.
+ * Comments and empty lines get no response. If the script takes longer than
+ * {@link #PROGRESS_DELAY} milliseconds, a progress dialog is shown.
+ * Closing the progress dialog stops the script. The execution can start
+ * from any line of the script, which allows a stopped script to be resumed.
+ * @author Grigor Iliev
+ */
+class LscpScriptRunner extends SwingWorker<Void, String> {
+	/**
+	 * The maximum number of lines read from the script, which are
+	 * not yet passed to the LS console or not answered by the back-end.
+	 */
+	private final static int MAX_IN_FLIGHT = 64;
+	
+	/** The time in milliseconds before the progress dialog is shown. */
+	private final static int PROGRESS_DELAY = 500;
+	
+	/** The number of lines to be shown when previewing the script. */
+	private final static int PREVIEW_SIZE = 3;
+	
+	private final File script;
+	private final LSConsoleModel console;
+	private final Runnable onSuccess;
+	private final int startLine;
+	
+	private final Semaphore window = new Semaphore(MAX_IN_FLIGHT);
+	
+	/**
+	 * Determines for each command sent to the back-end and not answered yet,
+	 * in the order of sending, whether its response spans multiple lines.
+	 */
+	private final ConcurrentLinkedQueue<Boolean> pending = new ConcurrentLinkedQueue<Boolean>();
+	private final ResponseHandler responseHandler = new ResponseHandler();
+	
+	private final ProgressDlg progressDlg = new ProgressDlg();
+	private final Timer progressTimer;
+	
+	private volatile LscpScriptFile scriptFile = null;
+	private boolean released = false;
+	private int nextLine;
+	
+	/**
+	 * Creates a new instance of <code>LscpScriptRunner</code>.
+	 * @param script The script to be executed.
+	 * @param console The LS console model used to execute the commands.
+	 * @param onSuccess Invoked on the event-dispatching thread when
+	 * the whole script is executed, or <code>null</code>.
+	 */
+	LscpScriptRunner(File script, LSConsoleModel console, Runnable onSuccess) {
+		this(script, console, onSuccess, 0);
+	}
+	
+	/**
+	 * Creates a new instance of <code>LscpScriptRunner</code>.
+	 * @param script The script to be executed.
+	 * @param console The LS console model used to execute the commands.
+	 * @param onSuccess Invoked on the event-dispatching thread when
+	 * the whole script is executed, or <code>null</code>.
+	 * @param startLine The zero-based number of the first line to be executed.
+	 */
+	LscpScriptRunner (
+		File script, LSConsoleModel console, Runnable onSuccess, int startLine
+	) {
+		this.script = script;
+		this.console = console;
+		this.onSuccess = onSuccess;
+		this.startLine = startLine;
+		nextLine = startLine;
+		
+		progressDlg.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+		progressDlg.addWindowListener(new WindowAdapter() {
+			@Override
+			public void
+			windowClosing(WindowEvent e) { cancel(true); }
+		});
+		
+		progressTimer = new Timer(PROGRESS_DELAY, new ActionListener() {
+			@Override
+			public void
+			actionPerformed(ActionEvent e) {
+				updateProgress();
+				progressDlg.start();
+			}
+		});
+		progressTimer.setRepeats(false);
+	}
+	
+	/** Starts the execution of the script. */
+	public void
+	start() {
+		console.addLSConsoleListener(responseHandler);
+		execute();
+		progressTimer.start();
+	}
+	
+	@Override
+	protected Void
+	doInBackground() throws Exception {
+		if(!setScriptFile(new LscpScriptFile(script))) return null;
+		int count = scriptFile.getLineCount();
+		
+		for(int i = startLine; i < count && !isCancelled(); ) {
+			String[] lines = scriptFile.readLines(i, MAX_IN_FLIGHT);
+			for(String s : lines) {
+				if(isCancelled()) break;
+				window.acquire();
+				publish(s);
+			}
+			i += lines.length;
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Gets the zero-based number of the next line to be executed. When the
+	 * script is stopped, this is the line from which it can be resumed.
+	 */
+	public int
+	getNextLine() { return nextLine; }
+	
+	@Override
+	protected void
+	process(List<String> commands) {
+		for(String s : commands) {
+			if(isCancelled()) {
+				window.release();
+				continue;
+			}
+			
+			String cmd = s.trim();
+			boolean answered = cmd.isEmpty() || cmd.startsWith("#");
+			// The response may arrive before execCommand returns
+			if(!answered) pending.add(isMultiLineCommand(cmd));
+			
+			console.setCommandLineText(s);
+			console.execCommand();
+			nextLine++;
+			
+			if(answered) window.release();
+		}
+		
+		if(progressTimer.isRunning()) return;
+		updateProgress();
+	}
+	
+	private void
+	updateProgress() {
+		LscpScriptFile f = scriptFile;
+		int count = f == null ? 0 : f.getLineCount();
+		int percent = count == 0 ? 0 : (int)Math.min(100, nextLine * 100L / count);
+		String s = i18n.getMessage (
+			"LscpScriptRunner.progress", script.getName(), nextLine, count, percent
+		);
+		progressDlg.setString(s);
+	}
+	
+	/**
+	 * Determines whether the response to the specified command spans multiple
+	 * lines terminated by a line containing a single dot. These are
+	 * the responses to the <code>GET ... INFO</code> commands.
+	 */
+	private static boolean
+	isMultiLineCommand(String cmd) {
+		String s = cmd.toUpperCase();
+		return s.startsWith("GET ") && s.contains(" INFO");
+	}
+	
+	/**
+	 * Processes a line of a response from the back-end. When the last line of
+	 * the response to the oldest pending command is received, another line
+	 * can be sent. Events from the back-end are ignored.
+	 */
+	private void
+	responseLineReceived(String line) {
+		if(line.isEmpty() || line.startsWith("NOTIFY:")) return;
+		
+		Boolean multiLine = pending.peek();
+		if(multiLine == null) return;
+		if(multiLine && !line.equals(".") && !line.startsWith("ERR:")) return;
+		
+		pending.poll();
+		window.release();
+	}
+	
+	@Override
+	protected void
+	done() {
+		console.removeLSConsoleListener(responseHandler);
+		
+		try { finish(); }
+		finally { onFinished(); }
+	}
+	
+	private void
+	finish() {
+		progressTimer.stop();
+		progressDlg.stop();
+		// The dialog may be shown asynchronously, so make sure it doesn't remain open
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void
+			run() { progressDlg.stop(); }
+		});
+		
+		try {
+			get();
+		} catch(CancellationException e) {
+			CC.getLogger().info (
+				"Script " + script.getAbsolutePath() +
+				" stopped before line " + (nextLine + 1)
+			);
+			onStopped(nextLine, getPreview(nextLine));
+			return;
+		} catch(InterruptedException e) {
+			return;
+		} catch(ExecutionException e) {
+			Throwable t = e.getCause();
+			if(scriptFile != null) onStopped(nextLine, getPreview(nextLine));
+			
+			if(t instanceof NoSuchFileException) {
+				String path = script.getAbsolutePath();
+				SHF.showErrorMessage(i18n.getError("fileNotFound!", path));
+			} else if(t instanceof Exception) {
+				SHF.showErrorMessage((Exception)t);
+			} else {
+				SHF.showErrorMessage(e);
+			}
+			return;
+		} finally {
+			closeScriptFile();
+		}
+		
+		if(onSuccess != null) onSuccess.run();
+	}
+	
+	/**
+	 * Invoked on the event-dispatching thread when the script is stopped
+	 * by the user or due to an error, before all lines are executed.
+	 * The default implementation does nothing.
+	 * @param nextLine The zero-based number of the first line not executed.
+	 * @param preview The first lines not executed, which may be empty.
+	 */
+	protected void
+	onStopped(int nextLine, String[] preview) { }
+	
+	/**
+	 * Invoked on the event-dispatching thread when the runner is done,
+	 * whether the script is executed, stopped or failed.
+	 * The default implementation does nothing.
+	 */
+	protected void
+	onFinished() { }
+	
+	private String[]
+	getPreview(int line) {
+		LscpScriptFile f = scriptFile;
+		if(f == null) return new String[0];
+		
+		try { return f.readLines(line, PREVIEW_SIZE); }
+		catch(IOException e) {
+			CC.getLogger().log(Level.INFO, "Failed to read the script preview", e);
+			return new String[0];
+		}
+	}
+	
+	/**
+	 * Sets the opened script file, unless the runner is already done,
+	 * in which case the file is closed.
+	 * @return <code>true</code> if the script file is set, <code>false</code> otherwise.
+	 */
+	private synchronized boolean
+	setScriptFile(LscpScriptFile f) {
+		if(!released) {
+			scriptFile = f;
+			return true;
+		}
+		
+		close(f);
+		return false;
+	}
+	
+	private synchronized void
+	closeScriptFile() {
+		released = true;
+		if(scriptFile != null) close(scriptFile);
+	}
+	
+	private void
+	close(LscpScriptFile f) {
+		try { f.close(); }
+		catch(IOException e) {
+			CC.getLogger().log(Level.INFO, "Failed to close " + script.getAbsolutePath(), e);
+		}
+	}
+	
+	private class ResponseHandler implements LSConsoleListener {
+		/** Invoked when the text in the command line is changed. */
+		@Override
+		public void
+		commandChanged(LSConsoleEvent e) { }
+		
+		/** Invoked when the command in the command line has been executed. */
+		@Override
+		public void
+		commandExecuted(LSConsoleEvent e) { }
+		
+		/** Invoked when response from the back-end is received. */
+		@Override
+		public void
+		responseReceived(LSConsoleEvent e) {
+			String s = e.getResponse();
+			if(s == null) return;
+			
+			for(String line : s.split("\r?\n")) responseLineReceived(line.trim());
+		}
+	}
+}
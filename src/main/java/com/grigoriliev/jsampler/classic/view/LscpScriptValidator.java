@@ -0,0 +1,297 @@
+/*
+ *   JSampler - a front-end for LinuxSampler
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of JSampler.
+ *
+ *   JSampler is free software: you can redistribute it and/or modify it under
+ *   the terms of the GNU General Public License as published by the Free
+ *   Software Foundation, either version 3 of the License, or (at your option)
+ *   any later version.
+ *
+ *   JSampler is distributed in the hope that it will be useful, but WITHOUT
+ *   ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *   FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ *   more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with JSampler. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.grigoriliev.jsampler.classic.view;
+
+import java.awt.Dimension;
+import java.awt.Frame;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.HashMap;
+import java.util.TreeSet;
+import java.util.Vector;
+
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+
+import com.grigoriliev.jsampler.CC;
+import com.grigoriliev.jsampler.juife.swing.InformationDialog;
+
+import static com.grigoriliev.jsampler.classic.view.ClassicI18n.i18n;
+
+
+/**
+ * Validates LSCP scripts without sending anything to the back-end.
+ * Each command is split into tokens and its leading keywords are matched
+ * against the LSCP command vocabulary used by the LS console for auto-completion.
+ * The validation doesn't check the command arguments.
+ * @author Grigor Iliev
+ */
+class LscpScriptValidator {
+	/** The maximum number of errors that are reported. */
+	public final static int MAX_ERRORS = 1000;
+	
+	private final static int CHUNK_SIZE = 1024;
+	
+	private final KeywordNode root = new KeywordNode();
+	
+	/**
+	 * Creates a new instance of <code>LscpScriptValidator</code>.
+	 * @param commands The LSCP command vocabulary. Only the leading keywords
+	 * of each command are taken into account, the arguments are ignored.
+	 */
+	LscpScriptValidator(String[] commands) {
+		for(String cmd : commands) {
+			Vector<String> tokens = new Vector<String>();
+			if(tokenize(cmd, tokens) != null) continue;
+			
+			KeywordNode node = root;
+			for(String t : tokens) {
+				if(!isKeyword(t)) break;
+				
+				KeywordNode n = node.children.get(t);
+				if(n == null) {
+					n = new KeywordNode();
+					node.children.put(t, n);
+				}
+				node = n;
+			}
+			
+			if(node != root) node.command = true;
+		}
+	}
+	
+	private static boolean
+	isKeyword(String s) {
+		if(s.isEmpty() || s.charAt(0) < 'A' || s.charAt(0) > 'Z') return false;
+		
+		for(int i = 1; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if((c < 'A' || c > 'Z') && (c < '0' || c > '9') && c != '_') return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Splits the specified command into tokens. Quoted strings,
+	 * which may contain escape sequences, are returned as single tokens.
+	 * @param cmd The command to split.
+	 * @param tokens The vector to which the tokens are added.
+	 * @return An error message, or <code>null</code> if the command is split successfully.
+	 */
+	static String
+	tokenize(String cmd, Vector<String> tokens) {
+		int len = cmd.length();
+		int i = 0;
+		
+		while(i < len) {
+			char c = cmd.charAt(i);
+			if(c == ' ' || c == '\t') {
+				i++;
+				continue;
+			}
+			
+			int start = i;
+			if(c == '\'' || c == '"') {
+				i++;
+				while(i < len && cmd.charAt(i) != c) {
+					if(cmd.charAt(i) == '\\') i++;
+					i++;
+				}
+				
+				if(i >= len) {
+					return i18n.getError("LscpScriptValidator.unterminatedString", start + 1);
+				}
+				i++;
+			} else {
+				while(i < len && cmd.charAt(i) != ' ' && cmd.charAt(i) != '\t') i++;
+			}
+			
+			tokens.add(cmd.substring(start, i));
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Validates the specified line of an LSCP script.
+	 * @param line The line to validate.
+	 * @return An error message, or <code>null</code> if the line is
+	 * a valid command, a comment, or an empty line.
+	 */
+	public String
+	validate(String line) {
+		Vector<String> tokens = new Vector<String>();
+		String err = tokenize(line, tokens);
+		if(err != null) return err;
+		if(tokens.isEmpty() || tokens.get(0).startsWith("#")) return null;
+		
+		KeywordNode node = root;
+		for(String t : tokens) {
+			KeywordNode n = node.children.get(t);
+			if(n == null) break;
+			node = n;
+		}
+		
+		if(node == root) {
+			return i18n.getError("LscpScriptValidator.unknownCommand", tokens.get(0));
+		}
+		
+		if(!node.command) {
+			String s = new TreeSet<String>(node.children.keySet()).toString();
+			return i18n.getError("LscpScriptValidator.incompleteCommand", s);
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Validates the specified LSCP script. This method may take a long
+	 * time and should not be invoked on the event-dispatching thread.
+	 * @param script The script to validate.
+	 * @return The validation report.
+	 * @throws IOException If an I/O error occurs.
+	 */
+	public Report
+	validate(File script) throws IOException {
+		Report report = new Report(script);
+		long time = System.nanoTime();
+		
+		LscpScriptFile f = new LscpScriptFile(script);
+		try {
+			report.lineCount = f.getLineCount();
+			for(int i = 0; i < report.lineCount; i += CHUNK_SIZE) {
+				String[] lines = f.readLines(i, CHUNK_SIZE);
+				for(int j = 0; j < lines.length; j++) {
+					String err = validate(lines[j]);
+					if(err == null) continue;
+					
+					report.errorCount++;
+					if(report.errors.size() < MAX_ERRORS) {
+						String s = i18n.getError("LscpScriptValidator.line", i + j + 1, err);
+						report.errors.add(s);
+					}
+				}
+			}
+		} finally {
+			f.close();
+		}
+		
+		report.time = System.nanoTime() - time;
+		
+		CC.getLogger().info (
+			"Validated " + report.lineCount + " lines of " + script.getAbsolutePath() +
+			" in " + report.getTimeMillis() + "ms (" + report.getLinesPerSecond() +
+			" lines/s), " + report.errorCount + " errors"
+		);
+		
+		return report;
+	}
+	
+	private static class KeywordNode {
+		final HashMap<String, KeywordNode> children = new HashMap<String, KeywordNode>();
+		
+		/** Determines whether the keywords up to this node form a complete command. */
+		boolean command = false;
+	}
+	
+	/** The result of a script validation. */
+	public static class Report {
+		private final File script;
+		private final Vector<String> errors = new Vector<String>();
+		private int errorCount = 0;
+		private int lineCount = 0;
+		private long time = 0;
+		
+		Report(File script) { this.script = script; }
+		
+		/** Gets the validated script. */
+		public File
+		getScript() { return script; }
+		
+		/**
+		 * Gets the error messages, prefixed with the line numbers.
+		 * At most {@link #MAX_ERRORS} messages are kept.
+		 */
+		public String[]
+		getErrors() { return errors.toArray(new String[errors.size()]); }
+		
+		/** Gets the total number of errors. */
+		public int
+		getErrorCount() { return errorCount; }
+		
+		/** Gets the number of lines in the script. */
+		public int
+		getLineCount() { return lineCount; }
+		
+		/** Gets the time in milliseconds taken by the validation. */
+		public long
+		getTimeMillis() { return time / 1000000; }
+		
+		/** Gets the number of lines validated per second. */
+		public long
+		getLinesPerSecond() { return time == 0 ? 0 : lineCount * 1000000000L / time; }
+	}
+}
+
+/**
+ * Shows the result of an LSCP script validation.
+ * @author Grigor Iliev
+ */
+class LscpValidationDlg extends InformationDialog {
+	/**
+	 * Creates a new instance of <code>LscpValidationDlg</code>.
+	 * @param owner The owner of this dialog.
+	 * @param report The validation report to show.
+	 */
+	LscpValidationDlg(Frame owner, LscpScriptValidator.Report report) {
+		super(owner, new JScrollPane(createTextArea(report)));
+		
+		setTitle(i18n.getLabel("LscpValidationDlg.title", report.getScript().getName()));
+		setPreferredSize(new Dimension(560, 360));
+		pack();
+		setLocationRelativeTo(owner);
+	}
+	
+	private static JTextArea
+	createTextArea(LscpScriptValidator.Report report) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(i18n.getLabel (
+			"LscpValidationDlg.summary", report.getLineCount(), report.getErrorCount(),
+			report.getTimeMillis(), report.getLinesPerSecond()
+		)).append("\n\n");
+		
+		for(String s : report.getErrors()) sb.append(s).append('\n');
+		
+		if(report.getErrorCount() > report.getErrors().length) {
+			int i = report.getErrorCount() - report.getErrors().length;
+			sb.append(i18n.getLabel("LscpValidationDlg.moreErrors", i)).append('\n');
+		}
+		
+		JTextArea ta = new JTextArea(sb.toString());
+		ta.setEditable(false);
+		ta.setCaretPosition(0);
+		return ta;
+	}
+}
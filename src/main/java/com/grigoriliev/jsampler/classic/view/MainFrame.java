@@ -34,12 +34,13 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 
+import java.util.HashMap;
 import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+
+import java.util.logging.Level;
 
 import javax.swing.Action;
 import javax.swing.ImageIcon;
@@ -51,6 +52,8 @@ import javax.swing.JPanel;
 import javax.swing.JSplitPane;
 import javax.swing.JTabbedPane;
 import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
@@ -60,7 +63,6 @@ import com.grigoriliev.jsampler.juife.swing.NavigationPage;
 import com.grigoriliev.jsampler.CC;
 import com.grigoriliev.jsampler.JSUtils;
 import com.grigoriliev.jsampler.LSConsoleModel;
-import com.grigoriliev.jsampler.OrchestraModel;
 import com.grigoriliev.jsampler.Server;
 import com.grigoriliev.jsampler.task.Global;
 import com.grigoriliev.jsampler.view.JSChannel;
@@ -104,14 +106,23 @@ MainFrame extends SwingMainFrame<ChannelsPane> implements ChangeListener, com.gr
 	private final JPanel channelsPane = new JPanel(new BorderLayout());
 	private final JPanel rightPane = new JPanel();
 	private final JPanel bottomPane = new JPanel();
-	private final LSConsolePane lsConsolePane = new LSConsolePane(this);
+	private LSConsolePane lsConsolePane = null;
 	private LSConsoleDlg lsConsoleDlg = null;
-	private final JSBackendLogFrame backendLogFrame = new JSBackendLogFrame();
+	private JSBackendLogFrame backendLogFrame = null;
 	
 	private final JTabbedPane tabbedPane =
 		new JTabbedPane(JTabbedPane.BOTTOM, JTabbedPane.SCROLL_TAB_LAYOUT);
 	private final Vector<JMenuItem> miList = new Vector<JMenuItem>();
 	
+	/** The scripts that were stopped before completion, mapped by their paths. */
+	private final HashMap<String, StoppedScript> stoppedScripts =
+		new HashMap<String, StoppedScript>();
+	
+	/** The script being executed, or <code>null</code> if no script is running. */
+	private LscpScriptRunner scriptRunner = null;
+	
+	private boolean startupFinished = false;
+	
 	private final JCheckBoxMenuItem cbmiLeftPaneVisible =
 			new JCheckBoxMenuItem(i18n.getMenuLabel("view.leftPane"));
 	
@@ -126,9 +137,15 @@ MainFrame extends SwingMainFrame<ChannelsPane> implements ChangeListener, com.gr
 	private final Vector<String> recentScripts = new Vector<String>();
 		
 	
+	static {
+		StartupProfiler.start();
+	}
+	
 	/** Creates a new instance of <code>MainFrame</code>. */
 	public
 	MainFrame() {
+		StartupProfiler.mark("Frame, toolbars and status bar");
+		ClassicPrefs.startWriteBehind();
 		setTitle(i18n.getLabel("MainFrame.title"));
 		
 		CC.setMainFrame(this); // TODO: 
@@ -145,6 +162,7 @@ MainFrame extends SwingMainFrame<ChannelsPane> implements ChangeListener, com.gr
 		miList.add(new JMenuItem(new A4n.MoveChannelsTo(p)));
 		
 		channelsPane.add(getChannelsPane(0));
+		StartupProfiler.mark("Channels pane");
 		
 		bottomPane.setLayout(new BorderLayout());
 		
@@ -181,13 +199,16 @@ MainFrame extends SwingMainFrame<ChannelsPane> implements ChangeListener, com.gr
 		rightPane.add(vSplitPane);
 		
 		if(applicationIcon != null) setIconImage(applicationIcon.getImage());
+		StartupProfiler.mark("Left pane and split panes");
 		
 		initMainFrame();
+		StartupProfiler.mark("Menus");
 		
 		pack();
 		
 		if(ClassicPrefs.getSaveWindowProperties()) setSavedSize();
 		else setDefaultSize();
+		StartupProfiler.mark("Layout");
 		
 		if(ClassicPrefs.getSaveLeftPaneState()) {
 			NavigationPage page =
@@ -195,13 +216,9 @@ MainFrame extends SwingMainFrame<ChannelsPane> implements ChangeListener, com.gr
 			
 			getLeftPane().getModel().addPage(page);
 			getLeftPane().getModel().clearHistory();
-			
-			int idx = ClassicPrefs.getCurrentOrchestraIndex();
-			if(idx >= 0 && idx < CC.getOrchestras().getOrchestraCount()) {
-				OrchestraModel om = CC.getOrchestras().getOrchestra(idx);
-				getLeftPane().getOrchestrasPage().setSelectedOrchestra(om);
-			}
+			// The saved orchestra is selected when the orchestras page is created
 		}
+		StartupProfiler.mark("Left pane state");
 		
 		//CC.getInstrumentsDbTreeModel(); // used to initialize the db tree model
 	}
@@ -225,6 +242,7 @@ MainFrame extends SwingMainFrame<ChannelsPane> implements ChangeListener, com.gr
 			setVisible(false);
 			if(ClassicPrefs.getWindowMaximized("MainFrame")) {
 				//setExtendedState(getExtendedState() & ~MAXIMIZED_BOTH);
+				ClassicPrefs.flush();
 				CC.cleanExit();
 				return;
 			}
@@ -245,16 +263,18 @@ MainFrame extends SwingMainFrame<ChannelsPane> implements ChangeListener, com.gr
 			
 			ClassicPrefs.setLeftPanePageIndex(idx);
 			
-			idx = getLeftPane().getOrchestrasPage().getCurrentOrchestraIndex();
-			
-			if(idx >= 0 && idx < CC.getOrchestras().getOrchestraCount())
-				ClassicPrefs.setCurrentOrchestraIndex(idx);
+			if(getLeftPane().isOrchestrasPageCreated()) {
+				idx = getLeftPane().getOrchestrasPage().getCurrentOrchestraIndex();
+				
+				if(idx >= 0 && idx < CC.getOrchestras().getOrchestraCount())
+					ClassicPrefs.setCurrentOrchestraIndex(idx);
+			}
 		}
 		
 		String[] list = recentScripts.toArray(new String[recentScripts.size()]);
 		preferences().setStringListProperty(RECENT_LSCP_SCRIPTS, list);
 		
-		if(preferences().getBoolProperty(SAVE_LS_CONSOLE_HISTORY)) {
+		if(lsConsolePane != null && preferences().getBoolProperty(SAVE_LS_CONSOLE_HISTORY)) {
 			lsConsolePane.saveConsoleHistory();
 		}
 		
@@ -263,8 +283,9 @@ MainFrame extends SwingMainFrame<ChannelsPane> implements ChangeListener, com.gr
 		
 		ClassicPrefs.setVSplitDividerLocation(vSplitPane.getDividerLocation());
 		
-		if(getBackendLogFrame() != null) getBackendLogFrame().stopTimer();
+		if(backendLogFrame != null) backendLogFrame.stopTimer();
 		if(lsConsolePane != null) lsConsolePane.disconnect();
+		ClassicPrefs.flush();
 		super.onWindowClose();
 	}
 	
@@ -278,6 +299,51 @@ MainFrame extends SwingMainFrame<ChannelsPane> implements ChangeListener, com.gr
 		if(ClassicPrefs.getWindowMaximized("MainFrame")) {
 			setExtendedState(getExtendedState() | MAXIMIZED_BOTH);
 		}
+		
+		if(b && !startupFinished) {
+			startupFinished = true;
+			StartupProfiler.mark("Show");
+			
+			// Invoked after the pending paint events of the main frame
+			SwingUtilities.invokeLater(new Runnable() {
+				public void
+				run() {
+					StartupProfiler.finish("First frame");
+					preloadClasses();
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Loads, without initializing, the classes of the windows that are
+	 * created on demand, so that they are shown faster the first time.
+	 */
+	private void
+	preloadClasses() {
+		final String[] classes = {
+			"com.grigoriliev.jsampler.classic.view.LSConsolePane",
+			"com.grigoriliev.jsampler.classic.view.PrefsDlg",
+			"com.grigoriliev.jsampler.classic.view.InstrumentsDbFrame",
+			"com.grigoriliev.jsampler.swing.view.std.JSBackendLogFrame"
+		};
+		
+		Thread t = new Thread("Class preloader") {
+			public void
+			run() {
+				ClassLoader cl = MainFrame.class.getClassLoader();
+				for(String s : classes) {
+					try { Class.forName(s, false, cl); }
+					catch(Throwable x) {
+						CC.getLogger().log(Level.FINE, "Failed to preload " + s, x);
+					}
+				}
+			}
+		};
+		
+		t.setDaemon(true);
+		t.setPriority(Thread.MIN_PRIORITY);
+		t.start();
 	}
 	
 	private void
@@ -366,6 +432,8 @@ MainFrame extends SwingMainFrame<ChannelsPane> implements ChangeListener, com.gr
 		mi.setIcon(null);
 		m.add(mi);
 		
+		m.add(new JMenuItem(A4n.validateScript));
+		
 		String[] list = preferences().getStringListProperty(RECENT_LSCP_SCRIPTS);
 		for(String s : list) recentScripts.add(s);
 		
@@ -502,7 +570,7 @@ MainFrame extends SwingMainFrame<ChannelsPane> implements ChangeListener, com.gr
 		});
 		m.add(cbmiLSConsoleShown);
 		
-		lsConsolePane.updateLSConsoleViewMode();
+		if(lsConsolePane != null) lsConsolePane.updateLSConsoleViewMode();
 		
 		// Channels
 		m = new JMenu(i18n.getMenuLabel("channels"));
@@ -781,15 +849,15 @@ MainFrame extends SwingMainFrame<ChannelsPane> implements ChangeListener, com.gr
 	private void
 	setLSConsolePopOut0(boolean b) {
 		if(b) {
-			bottomPane.remove(lsConsolePane);
+			bottomPane.remove(getLSConsolePane());
 			showBottomPane(false);
 			
-			lsConsoleDlg = new LSConsoleDlg(this, lsConsolePane);
+			lsConsoleDlg = new LSConsoleDlg(this, getLSConsolePane());
 			lsConsoleDlg.setVisible(true);
 		} else {
 			if(lsConsoleDlg != null) lsConsoleDlg.setVisible(false);
 			lsConsoleDlg = null;
-			bottomPane.add(lsConsolePane);
+			bottomPane.add(getLSConsolePane());
 			showBottomPane(true);
 		}
 	}
@@ -805,52 +873,116 @@ MainFrame extends SwingMainFrame<ChannelsPane> implements ChangeListener, com.gr
 	
 	@Override
 	public LSConsoleModel
-	getLSConsoleModel() { return lsConsolePane.getModel(); }
+	getLSConsoleModel() { return getLSConsolePane().getModel(); }
+	
+	/**
+	 * Gets the LS Console pane, which is created on first use.
+	 * The current LS Console preferences are applied to it when it is created.
+	 */
+	private LSConsolePane
+	getLSConsolePane() {
+		if(lsConsolePane == null) {
+			lsConsolePane = new LSConsolePane(this);
+			lsConsolePane.updateLSConsoleViewMode();
+			applyLSConsolePrefs();
+		}
+		
+		return lsConsolePane;
+	}
 	
+	/** Applies the LS Console preferences to the LS Console pane, if it is created. */
+	protected void
+	applyLSConsolePrefs() {
+		if(lsConsolePane == null) return;
+		
+		int i = preferences().getIntProperty(LS_CONSOLE_HISTSIZE);
+		lsConsolePane.getModel().setCommandHistorySize(i);
+		
+		i = preferences().getIntProperty(LS_CONSOLE_TEXT_COLOR);
+		lsConsolePane.setTextColor(new Color(i));
+		
+		i = preferences().getIntProperty(LS_CONSOLE_BACKGROUND_COLOR);
+		lsConsolePane.setBackgroundColor(new Color(i));
+		
+		i = preferences().getIntProperty(LS_CONSOLE_NOTIFY_COLOR);
+		lsConsolePane.setNotifyColor(new Color(i));
+		
+		i = preferences().getIntProperty(LS_CONSOLE_WARNING_COLOR);
+		lsConsolePane.setWarningColor(new Color(i));
+		
+		i = preferences().getIntProperty(LS_CONSOLE_ERROR_COLOR);
+		lsConsolePane.setErrorColor(new Color(i));
+		
+		lsConsolePane.setOutputMaxLines(ClassicPrefs.getLSConsoleMaxLines());
+	}
+	
+	/** Gets the back-end log frame, which is created on first use. */
 	protected JSBackendLogFrame
-	getBackendLogFrame() { return backendLogFrame; }
+	getBackendLogFrame() {
+		if(backendLogFrame == null) backendLogFrame = new JSBackendLogFrame();
+		return backendLogFrame;
+	}
 	
 	/**
 	 * Sets the text color of the LS Console.
 	 * @param c The text color of the LS Console.
 	 */
 	protected void
-	setLSConsoleTextColor(Color c) { lsConsolePane.setTextColor(c); }
+	setLSConsoleTextColor(Color c) {
+		if(lsConsolePane != null) lsConsolePane.setTextColor(c);
+	}
 	
 	/**
 	 * Sets the background color of the LS Console.
 	 * @param c The background color of the LS Console.
 	 */
 	protected void
-	setLSConsoleBackgroundColor(Color c) { lsConsolePane.setBackgroundColor(c); }
+	setLSConsoleBackgroundColor(Color c) {
+		if(lsConsolePane != null) lsConsolePane.setBackgroundColor(c);
+	}
 	
 	/**
 	 * Sets the notification messages' color of the LS Console.
 	 * @param c The notification messages' color of the LS Console.
 	 */
 	protected void
-	setLSConsoleNotifyColor(Color c) { lsConsolePane.setNotifyColor(c); }
+	setLSConsoleNotifyColor(Color c) {
+		if(lsConsolePane != null) lsConsolePane.setNotifyColor(c);
+	}
 	
 	/**
 	 * Sets the warning messages' color of the LS Console.
 	 * @param c The warning messages' color of the LS Console.
 	 */
 	protected void
-	setLSConsoleWarningColor(Color c) { lsConsolePane.setWarningColor(c); }
+	setLSConsoleWarningColor(Color c) {
+		if(lsConsolePane != null) lsConsolePane.setWarningColor(c);
+	}
 	
 	/**
 	 * Sets the error messages' color of the LS Console.
 	 * @param c The error messages' color of the LS Console.
 	 */
 	protected void
-	setLSConsoleErrorColor(Color c) { lsConsolePane.setErrorColor(c); }
+	setLSConsoleErrorColor(Color c) {
+		if(lsConsolePane != null) lsConsolePane.setErrorColor(c);
+	}
+	
+	/**
+	 * Sets the maximum number of lines kept in the LS Console output.
+	 * @param maxLines The maximum number of lines, or <code>0</code> for unlimited output.
+	 */
+	protected void
+	setLSConsoleMaxLines(int maxLines) {
+		if(lsConsolePane != null) lsConsolePane.setOutputMaxLines(maxLines);
+	}
 	
 	protected void
 	showLSConsole(boolean b) {
 		if(!b) {
 			showBottomPane(false);
 			if(lsConsoleDlg != null) lsConsoleDlg.setVisible(false);
-			lsConsolePane.hideAutoCompleteWindow();
+			if(lsConsolePane != null) lsConsolePane.hideAutoCompleteWindow();
 			return;
 		}
 		
@@ -923,6 +1055,7 @@ MainFrame extends SwingMainFrame<ChannelsPane> implements ChangeListener, com.gr
 	public boolean
 	removeChannelsPane(ChannelsPane chnPane) {
 		chnPane.removeListSelectionListener(this);
+		chnPane.getUpdateScheduler().dispose();
 		
 		tabbedPane.remove(chnPane);
 		boolean b = super.removeChannelsPane(chnPane);
@@ -1089,6 +1222,7 @@ MainFrame extends SwingMainFrame<ChannelsPane> implements ChangeListener, com.gr
 		ChannelsPane c = (ChannelsPane)tabbedPane.getSelectedComponent();
 		if(getChannelsPane(idx) != c)
 			CC.getLogger().warning("Channels pane indices don't match");
+		c.getUpdateScheduler().flush(); // the pending updates are discarded on removal
 		removeChannelsPane(c);
 		insertChannelsPane(c, 0);
 		tabbedPane.setSelectedComponent(c);
@@ -1106,6 +1240,7 @@ MainFrame extends SwingMainFrame<ChannelsPane> implements ChangeListener, com.gr
 		ChannelsPane c = (ChannelsPane)tabbedPane.getSelectedComponent();
 		if(getChannelsPane(idx) != c)
 			CC.getLogger().warning("Channels pane indices don't match");
+		c.getUpdateScheduler().flush(); // the pending updates are discarded on removal
 		removeChannelsPane(c);
 		insertChannelsPane(c, idx - 1);
 		tabbedPane.setSelectedComponent(c);
@@ -1122,6 +1257,7 @@ MainFrame extends SwingMainFrame<ChannelsPane> implements ChangeListener, com.gr
 		ChannelsPane c = (ChannelsPane)tabbedPane.getSelectedComponent();
 		if(getChannelsPane(idx) != c)
 			CC.getLogger().warning("Channels pane indices don't match");
+		c.getUpdateScheduler().flush(); // the pending updates are discarded on removal
 		removeChannelsPane(c);
 		insertChannelsPane(c, idx + 1);
 		tabbedPane.setSelectedComponent(c);
@@ -1138,6 +1274,7 @@ MainFrame extends SwingMainFrame<ChannelsPane> implements ChangeListener, com.gr
 		ChannelsPane c = (ChannelsPane)tabbedPane.getSelectedComponent();
 		if(getChannelsPane(idx) != c)
 			CC.getLogger().warning("Channels pane indices don't match");
+		c.getUpdateScheduler().flush(); // the pending updates are discarded on removal
 		removeChannelsPane(c);
 		addChannelsPane(c);
 		tabbedPane.setSelectedComponent(c);
@@ -1155,37 +1292,127 @@ MainFrame extends SwingMainFrame<ChannelsPane> implements ChangeListener, com.gr
 	runScript(String script) { runScript(new File(script)); }
 	
 	private void
-	runScript(File script) {
-		FileReader fr;
-		try { fr = new FileReader(script); }
-		catch(FileNotFoundException e) {
+	runScript(final File script) {
+		if(scriptRunner != null) {
+			CC.getLogger().warning (
+				"Script " + script.getAbsolutePath() + " not started, " +
+				"another script is running"
+			);
+			return;
+		}
+		
+		if(!script.isFile()) {
 			SHF.showErrorMessage(i18n.getError("fileNotFound!", script.getAbsolutePath()));
 			return;
 		}
 		
-		BufferedReader br = new BufferedReader(fr);
+		final String path = script.getAbsolutePath();
+		int startLine = 0;
+		StoppedScript stopped = stoppedScripts.remove(path);
+		if(stopped != null) {
+			StringBuilder sb = new StringBuilder();
+			for(String s : stopped.preview) sb.append(s).append('\n');
+			
+			String s = i18n.getMessage (
+				"MainFrame.resumeScript?", script.getName(), stopped.line + 1, sb
+			);
+			if(SHF.showYesNoDialog(this, s)) startLine = stopped.line;
+		}
 		
-		try {
-			String s = br.readLine();
-			while(s != null) {
-				getLSConsoleModel().setCommandLineText(s);
-				getLSConsoleModel().execCommand();
-				s = br.readLine();
+		Runnable onSuccess = new Runnable() {
+			public void
+			run() {
+				if(preferences().getBoolProperty(SHOW_LS_CONSOLE_WHEN_RUN_SCRIPT)) {
+					if(!cbmiLSConsoleShown.isSelected()) cbmiLSConsoleShown.doClick(0);
+				}
+				
+				String s = script.getAbsolutePath();
+				recentScripts.remove(s);
+				recentScripts.insertElementAt(s, 0);
+				
+				updateRecentScriptsMenu();
 			}
-		} catch(Exception e) {
-			SHF.showErrorMessage(e);
-			return;
-		}
+		};
+		
+		scriptRunner = new LscpScriptRunner(script, getLSConsoleModel(), onSuccess, startLine) {
+			@Override
+			protected void
+			onStopped(int nextLine, String[] preview) {
+				stoppedScripts.put(path, new StoppedScript(nextLine, preview));
+			}
+			
+			@Override
+			protected void
+			onFinished() {
+				scriptRunner = null;
+				updateScriptControls();
+			}
+		};
+		
+		updateScriptControls();
+		scriptRunner.start();
+	}
+	
+	/**
+	 * Disables the controls which can run a script or execute a command
+	 * while a script is running, so that the commands can't interleave.
+	 */
+	private void
+	updateScriptControls() {
+		boolean b = scriptRunner == null;
+		A4n.loadScript.setEnabled(b);
+		recentScriptsMenu.setEnabled(b && recentScripts.size() != 0);
+		if(lsConsolePane != null) lsConsolePane.setScriptRunning(!b);
+	}
+	
+	/** The position at which a script was stopped, along with a preview of its next lines. */
+	private static class StoppedScript {
+		final int line;
+		final String[] preview;
 		
-		if(preferences().getBoolProperty(SHOW_LS_CONSOLE_WHEN_RUN_SCRIPT)) {
-			if(!cbmiLSConsoleShown.isSelected()) cbmiLSConsoleShown.doClick(0);
+		StoppedScript(int line, String[] preview) {
+			this.line = line;
+			this.preview = preview;
+		}
+	}
+	
+	protected void
+	validateScript() {
+		File f = StdUtils.showOpenLscpFileChooser();
+		if(f == null) return;
+		validateScript(f);
+	}
+	
+	/**
+	 * Validates the specified LSCP script in the background, without
+	 * sending anything to the back-end, and shows the result.
+	 */
+	private void
+	validateScript(final File script) {
+		if(!script.isFile()) {
+			SHF.showErrorMessage(i18n.getError("fileNotFound!", script.getAbsolutePath()));
+			return;
 		}
 		
-		String s = script.getAbsolutePath();
-		recentScripts.remove(s);
-		recentScripts.insertElementAt(s, 0);
+		String[] cmds = getLSConsoleModel().getCommandList();
+		final LscpScriptValidator validator = new LscpScriptValidator(cmds);
 		
-		updateRecentScriptsMenu();
+		new SwingWorker<LscpScriptValidator.Report, Void>() {
+			@Override
+			protected LscpScriptValidator.Report
+			doInBackground() throws Exception { return validator.validate(script); }
+			
+			@Override
+			protected void
+			done() {
+				try {
+					new LscpValidationDlg(MainFrame.this, get()).setVisible(true);
+				} catch(ExecutionException e) {
+					Throwable t = e.getCause();
+					SHF.showErrorMessage(t instanceof Exception ? (Exception)t : e);
+				} catch(InterruptedException e) { }
+			}
+		}.execute();
 	}
 	
 	protected void
@@ -1209,7 +1436,7 @@ MainFrame extends SwingMainFrame<ChannelsPane> implements ChangeListener, com.gr
 			mi.addActionListener(new RecentScriptHandler(script));
 		}
 		
-		recentScriptsMenu.setEnabled(recentScripts.size() != 0);
+		recentScriptsMenu.setEnabled(scriptRunner == null && recentScripts.size() != 0);
 	}
 	
 	@Override
@@ -27,6 +27,9 @@ import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 
+import java.util.HashMap;
+import java.util.Vector;
+
 import javax.swing.AbstractAction;
 import javax.swing.Action;
 import javax.swing.BorderFactory;
@@ -382,16 +385,32 @@ class MidiDevicesTableModel extends AbstractTableModel {
 		i18n.getLabel("MidiDevicesTableModel.ports")
 	};
 	
-	private MidiDeviceModel[] deviceList;
+	private final Vector<MidiDeviceModel> deviceList = new Vector<MidiDeviceModel>();
+	
+	/** Maps the device IDs to the rows of the devices. */
+	private final HashMap<Integer, Integer> rowsById = new HashMap<Integer, Integer>();
 	
 	MidiDevicesTableModel() {
 		CC.getSamplerModel().addMidiDeviceListListener(getHandler());
-		deviceList = CC.getSamplerModel().getMidiDevices();
-		for(MidiDeviceModel m : deviceList) m.addMidiDeviceListener(getHandler());
+		for(MidiDeviceModel m : CC.getSamplerModel().getMidiDevices()) {
+			rowsById.put(m.getDeviceId(), deviceList.size());
+			deviceList.add(m);
+			m.addMidiDeviceListener(getHandler());
+		}
 	}
 	
 	public MidiDeviceModel
-	getMidiDeviceModel(int index) { return deviceList[index]; }
+	getMidiDeviceModel(int index) { return deviceList.get(index); }
+	
+	/**
+	 * Gets the row of the device with the specified ID.
+	 * @return The row of the device, or <code>-1</code> if there is no such device.
+	 */
+	public int
+	getRowByDeviceId(int deviceId) {
+		Integer row = rowsById.get(deviceId);
+		return row == null ? -1 : row;
+	}
 	
 // The Table Model implementation
 	
@@ -407,7 +426,7 @@ class MidiDevicesTableModel extends AbstractTableModel {
 	 * @return The number of rows in the model.
 	 */
 	public int
-	getRowCount() { return deviceList.length; }
+	getRowCount() { return deviceList.size(); }
 	
 	/**
 	 * Gets the name of the column at <code>columnIndex</code>.
@@ -426,13 +445,15 @@ class MidiDevicesTableModel extends AbstractTableModel {
 	 */
 	public Object
 	getValueAt(int row, int col) {
+		MidiDeviceModel m = deviceList.get(row);
+		
 		switch(col) {
 		case ACTIVE_COLUMN_INDEX:
-			return deviceList[row].getDeviceInfo().isActive();
+			return m.getDeviceInfo().isActive();
 		case DEVICE_ID_COLUMN_INDEX:
-			return deviceList[row].getDeviceId();
+			return m.getDeviceId();
 		case PORTS_COLUMN_INDEX:
-			return deviceList[row].getDeviceInfo().getMidiPortCount();
+			return m.getDeviceInfo().getMidiPortCount();
 		}
 		
 		return null;
@@ -447,8 +468,8 @@ class MidiDevicesTableModel extends AbstractTableModel {
 		switch(col) {
 		case ACTIVE_COLUMN_INDEX:
 			boolean active = (Boolean)value;
-			deviceList[row].getDeviceInfo().setActive(active);
-			deviceList[row].setBackendActive(active);
+			getMidiDeviceModel(row).getDeviceInfo().setActive(active);
+			getMidiDeviceModel(row).setBackendActive(active);
 			break;
 		case PORTS_COLUMN_INDEX:
 			int ports = (Integer)value;
@@ -503,10 +524,14 @@ class MidiDevicesTableModel extends AbstractTableModel {
 		 */
 		public void
 		deviceAdded(MidiDeviceListEvent e) {
-			for(MidiDeviceModel m : deviceList) m.removeMidiDeviceListener(this);
-			deviceList = CC.getSamplerModel().getMidiDevices();
-			for(MidiDeviceModel m : deviceList) m.addMidiDeviceListener(this);
-			fireTableDataChanged();
+			MidiDeviceModel m = e.getMidiDeviceModel();
+			if(rowsById.containsKey(m.getDeviceId())) return;
+			
+			int row = deviceList.size();
+			rowsById.put(m.getDeviceId(), row);
+			deviceList.add(m);
+			m.addMidiDeviceListener(this);
+			fireTableRowsInserted(row, row);
 		}
 	
 		/**
@@ -516,24 +541,25 @@ class MidiDevicesTableModel extends AbstractTableModel {
 		 */
 		public void
 		deviceRemoved(MidiDeviceListEvent e) {
-			for(MidiDeviceModel m : deviceList) m.removeMidiDeviceListener(this);
-			deviceList = CC.getSamplerModel().getMidiDevices();
-			for(MidiDeviceModel m : deviceList) m.addMidiDeviceListener(this);
-			fireTableDataChanged();
+			int row = getRowByDeviceId(e.getMidiDeviceModel().getDeviceId());
+			if(row == -1) return;
+			
+			MidiDeviceModel m = deviceList.remove(row);
+			m.removeMidiDeviceListener(this);
+			rowsById.remove(m.getDeviceId());
+			
+			for(int i = row; i < deviceList.size(); i++) {
+				rowsById.put(deviceList.get(i).getDeviceId(), i);
+			}
+			
+			fireTableRowsDeleted(row, row);
 		}
 		
 		/** Invoked when when the settings of a particular MIDI device have changed. */
 		public void
 		settingsChanged(MidiDeviceEvent e) {
-			MidiInputDevice d = e.getMidiDeviceModel().getDeviceInfo();
-			
-			for(int i = 0; i < deviceList.length; i++) {
-				MidiInputDevice d2 = deviceList[i].getDeviceInfo();
-				
-				if(d.getDeviceId() == d2.getDeviceId()) {
-					fireTableRowsUpdated(i,  i);
-				}
-			}
+			int row = getRowByDeviceId(e.getMidiDeviceModel().getDeviceId());
+			if(row != -1) fireTableRowsUpdated(row, row);
 		}
 	}
 }
@@ -0,0 +1,321 @@
+/*
+ *   JSampler - a front-end for LinuxSampler
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of JSampler.
+ *
+ *   JSampler is free software: you can redistribute it and/or modify it under
+ *   the terms of the GNU General Public License as published by the Free
+ *   Software Foundation, either version 3 of the License, or (at your option)
+ *   any later version.
+ *
+ *   JSampler is distributed in the hope that it will be useful, but WITHOUT
+ *   ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *   FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ *   more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with JSampler. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.grigoriliev.jsampler.classic.view;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Vector;
+
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+
+import com.grigoriliev.jsampler.CC;
+import com.grigoriliev.jsampler.MidiInstrument;
+import com.grigoriliev.jsampler.MidiInstrumentMap;
+import com.grigoriliev.jsampler.event.MidiInstrumentMapEvent;
+import com.grigoriliev.jsampler.event.MidiInstrumentMapListener;
+
+import com.grigoriliev.jsampler.jlscp.MidiInstrumentInfo;
+
+
+/**
+ * An in-memory inverted index of the instruments in a MIDI instrument map.
+ * The instruments are indexed by the words in their names and file paths,
+ * and by their bank and program numbers. The index is kept in sync with the
+ * map by incremental updates, until {@link #uninstall} is invoked.
+ * @author Grigor Iliev
+ */
+class MidiInstrumentIndex {
+	private final MidiInstrumentMap map;
+	
+	/** The bank/program words are matched exactly, the other words by prefix. */
+	private final TextIndex<MidiInstrument> index = new TextIndex<MidiInstrument>() {
+		@Override
+		protected HashSet<MidiInstrument>
+		find(String token) { return isBankProgram(token) ? findExact(token) : super.find(token); }
+	};
+	
+	private final EventListenerList listenerList = new EventListenerList();
+	private final Handler handler = new Handler();
+	
+	/** Orders the instruments by MIDI bank and program. */
+	final static Comparator<MidiInstrument> programComparator =
+		new Comparator<MidiInstrument>() {
+			@Override
+			public int
+			compare(MidiInstrument i1, MidiInstrument i2) {
+				MidiInstrumentInfo m1 = i1.getInfo();
+				MidiInstrumentInfo m2 = i2.getInfo();
+				if(m1.getMidiBank() != m2.getMidiBank()) {
+					return Integer.compare(m1.getMidiBank(), m2.getMidiBank());
+				}
+				
+				return Integer.compare(m1.getMidiProgram(), m2.getMidiProgram());
+			}
+		};
+	
+	/**
+	 * Creates a new instance of <code>MidiInstrumentIndex</code>
+	 * and indexes all instruments in the specified map.
+	 * @param map The MIDI instrument map to index.
+	 */
+	MidiInstrumentIndex(MidiInstrumentMap map) {
+		this.map = map;
+		
+		long time = System.nanoTime();
+		for(MidiInstrument instr : map.getAllMidiInstruments()) add(instr);
+		time = (System.nanoTime() - time) / 1000000;
+		
+		CC.getLogger().fine (
+			"Indexed " + index.size() + " instruments of MIDI instrument map " +
+			map + " in " + time + "ms"
+		);
+		
+		map.addMidiInstrumentMapListener(handler);
+	}
+	
+	/** Gets the indexed MIDI instrument map. */
+	public MidiInstrumentMap
+	getMidiInstrumentMap() { return map; }
+	
+	/** Stops the tracking of the changes in the MIDI instrument map. */
+	public void
+	uninstall() { map.removeMidiInstrumentMapListener(handler); }
+	
+	/**
+	 * Registers the specified listener to be notified
+	 * when the index is updated due to a change in the map.
+	 */
+	public void
+	addChangeListener(ChangeListener l) { listenerList.add(ChangeListener.class, l); }
+	
+	/** Removes the specified listener. */
+	public void
+	removeChangeListener(ChangeListener l) { listenerList.remove(ChangeListener.class, l); }
+	
+	private void
+	fireStateChanged() {
+		ChangeEvent e = new ChangeEvent(this);
+		Object[] listeners = listenerList.getListenerList();
+		for(int i = listeners.length - 2; i >= 0; i -= 2) {
+			((ChangeListener)listeners[i + 1]).stateChanged(e);
+		}
+	}
+	
+	private static boolean
+	isBankProgram(String s) { return s.matches("\\d+/\\d+"); }
+	
+	private void
+	add(MidiInstrument instr) {
+		MidiInstrumentInfo info = instr.getInfo();
+		Vector<String> v = new Vector<String>();
+		TextIndexUtils.tokenize(info.getName(), v);
+		TextIndexUtils.tokenize(info.getFilePath(), v);
+		v.add(info.getMidiBank() + "/" + info.getMidiProgram());
+		index.add(instr, v);
+	}
+	
+	/**
+	 * Finds the instruments matching the specified query. An instrument matches
+	 * if for each word in the query, its name or file path contains a word
+	 * starting with that query word. A query word in the form
+	 * <code>bank/program</code> matches the instrument mapped to that position.
+	 * @param query The words to search for.
+	 * @return The matching instruments, sorted by bank and program.
+	 */
+	public MidiInstrument[]
+	search(String query) {
+		Vector<String> tokens = new Vector<String>();
+		for(String s : query.trim().split("\\s+")) {
+			if(isBankProgram(s)) tokens.add(s);
+			else TextIndexUtils.tokenize(s, tokens);
+		}
+		
+		HashSet<MidiInstrument> result = index.search(tokens);
+		MidiInstrument[] instrs = result.toArray(new MidiInstrument[result.size()]);
+		Arrays.sort(instrs, programComparator);
+		return instrs;
+	}
+	
+	private class Handler implements MidiInstrumentMapListener {
+		/** Invoked when the name of MIDI instrument map is changed. */
+		@Override
+		public void
+		nameChanged(MidiInstrumentMapEvent e) { }
+		
+		/** Invoked when an instrument is added to a MIDI instrument map. */
+		@Override
+		public void
+		instrumentAdded(MidiInstrumentMapEvent e) {
+			add(e.getInstrument());
+			fireStateChanged();
+		}
+		
+		/** Invoked when an instrument is removed from a MIDI instrument map. */
+		@Override
+		public void
+		instrumentRemoved(MidiInstrumentMapEvent e) {
+			index.remove(e.getInstrument());
+			fireStateChanged();
+		}
+	}
+}
+
+/**
+ * A flat tree model of MIDI instruments found by a search.
+ * The root is the map and the leaves are <code>MidiInstrument</code> objects.
+ * The results can be replaced by those of a new search, in which case
+ * only the differences are reported, so the selection of the instruments
+ * found by both searches is kept.
+ * @author Grigor Iliev
+ */
+class MidiInstrumentSearchModel implements TreeModel {
+	private final MidiInstrumentMap map;
+	private MidiInstrument[] instruments;
+	
+	private final EventListenerList listenerList = new EventListenerList();
+	
+	/**
+	 * Creates a new instance of <code>MidiInstrumentSearchModel</code>.
+	 * @param map The map that has been searched.
+	 * @param instruments The instruments found.
+	 */
+	MidiInstrumentSearchModel(MidiInstrumentMap map, MidiInstrument[] instruments) {
+		this.map = map;
+		this.instruments = instruments;
+	}
+	
+	/**
+	 * Replaces the search results. Both the current and the new
+	 * instruments should be sorted by bank and program.
+	 * @param instrs The instruments found by the new search.
+	 */
+	public void
+	setInstruments(MidiInstrument[] instrs) {
+		HashSet<MidiInstrument> oldSet = new HashSet<MidiInstrument>(Arrays.asList(instruments));
+		HashSet<MidiInstrument> newSet = new HashSet<MidiInstrument>(Arrays.asList(instrs));
+		
+		Vector<Integer> removed = new Vector<Integer>();
+		Vector<MidiInstrument> kept = new Vector<MidiInstrument>();
+		for(int i = 0; i < instruments.length; i++) {
+			if(newSet.contains(instruments[i])) kept.add(instruments[i]);
+			else removed.add(i);
+		}
+		
+		if(!removed.isEmpty()) {
+			Object[] children = new Object[removed.size()];
+			for(int i = 0; i < children.length; i++) children[i] = instruments[removed.get(i)];
+			
+			instruments = kept.toArray(new MidiInstrument[kept.size()]);
+			fireTreeNodesRemoved(toArray(removed), children);
+		}
+		
+		Vector<Integer> added = new Vector<Integer>();
+		for(int i = 0; i < instrs.length; i++) {
+			if(!oldSet.contains(instrs[i])) added.add(i);
+		}
+		
+		instruments = instrs;
+		
+		if(!added.isEmpty()) {
+			Object[] children = new Object[added.size()];
+			for(int i = 0; i < children.length; i++) children[i] = instrs[added.get(i)];
+			fireTreeNodesInserted(toArray(added), children);
+		}
+	}
+	
+	private static int[]
+	toArray(Vector<Integer> v) {
+		int[] a = new int[v.size()];
+		for(int i = 0; i < a.length; i++) a[i] = v.get(i);
+		return a;
+	}
+	
+	@Override
+	public Object
+	getRoot() { return map; }
+	
+	@Override
+	public Object
+	getChild(Object parent, int index) { return instruments[index]; }
+	
+	@Override
+	public int
+	getChildCount(Object parent) { return parent == map ? instruments.length : 0; }
+	
+	@Override
+	public boolean
+	isLeaf(Object node) { return node != map; }
+	
+	@Override
+	public int
+	getIndexOfChild(Object parent, Object child) {
+		if(parent != map) return -1;
+		
+		for(int i = 0; i < instruments.length; i++) {
+			if(instruments[i] == child) return i;
+		}
+		
+		return -1;
+	}
+	
+	@Override
+	public void
+	valueForPathChanged(TreePath path, Object newValue) { }
+	
+	@Override
+	public void
+	addTreeModelListener(TreeModelListener l) {
+		listenerList.add(TreeModelListener.class, l);
+	}
+	
+	@Override
+	public void
+	removeTreeModelListener(TreeModelListener l) {
+		listenerList.remove(TreeModelListener.class, l);
+	}
+	
+	private void
+	fireTreeNodesInserted(int[] indices, Object[] children) {
+		TreeModelEvent e = new TreeModelEvent(this, new Object[] { map }, indices, children);
+		Object[] listeners = listenerList.getListenerList();
+		for(int i = listeners.length - 2; i >= 0; i -= 2) {
+			((TreeModelListener)listeners[i + 1]).treeNodesInserted(e);
+		}
+	}
+	
+	private void
+	fireTreeNodesRemoved(int[] indices, Object[] children) {
+		TreeModelEvent e = new TreeModelEvent(this, new Object[] { map }, indices, children);
+		Object[] listeners = listenerList.getListenerList();
+		for(int i = listeners.length - 2; i >= 0; i -= 2) {
+			((TreeModelListener)listeners[i + 1]).treeNodesRemoved(e);
+		}
+	}
+}
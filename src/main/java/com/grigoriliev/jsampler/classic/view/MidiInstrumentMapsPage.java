@@ -35,13 +35,21 @@ import javax.swing.BoxLayout;
 import javax.swing.JComboBox;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.JTextField;
 import javax.swing.JToolBar;
+import javax.swing.Timer;
+
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 import javax.swing.tree.DefaultTreeCellRenderer;
 
 import com.grigoriliev.jsampler.juife.swing.NavigationPage;
 
 import com.grigoriliev.jsampler.CC;
+import com.grigoriliev.jsampler.MidiInstrument;
 import com.grigoriliev.jsampler.MidiInstrumentMap;
 import com.grigoriliev.jsampler.event.ListEvent;
 import com.grigoriliev.jsampler.event.ListListener;
@@ -72,6 +80,15 @@ public class MidiInstrumentMapsPage extends NavigationPage {
 	
 	//private final ToolbarButton btnCloseInstrumentBar = new ToolbarButton();
 	
+	/**
+	 * The time in milliseconds within which switching
+	 * between maps should complete to not drop a frame.
+	 */
+	private final static int FRAME_BUDGET = 16;
+	
+	/** The time in milliseconds to wait for more typing before searching. */
+	private final static int SEARCH_DELAY = 300;
+	
 	private final JComboBox cbMaps = new JComboBox();
 	private final MidiInstrumentsPane midiInstrumentsPane = new MidiInstrumentsPane();
 	
@@ -162,7 +179,14 @@ public class MidiInstrumentMapsPage extends NavigationPage {
 	private void
 	mapChanged() {
 		MidiInstrumentMap map = (MidiInstrumentMap)cbMaps.getSelectedItem();
+		
+		long time = System.nanoTime();
 		midiInstrumentsPane.setMidiInstrumentMap(map);
+		time = (System.nanoTime() - time) / 1000000;
+		
+		String s = "Switched to MIDI instrument map " + map + " in " + time + "ms";
+		if(time > FRAME_BUDGET) CC.getLogger().info(s + " (frame budget exceeded)");
+		else CC.getLogger().fine(s);
 		
 		boolean b = cbMaps.getItemCount() != 0;
 		actionEditMap.setEnabled(b);
@@ -182,7 +206,31 @@ public class MidiInstrumentMapsPage extends NavigationPage {
 		
 		private final ToolbarButton btnRemoveInstrument = new ToolbarButton(actionRemove);
 		
+		private final JTextField tfSearch = new JTextField();
+		
+		private MidiInstrumentMap map = null;
+		private LazyMidiInstrumentTreeModel treeModel = null;
+		
+		/** The search results of the current map, created on the first search. */
+		private MidiInstrumentSearchModel searchModel = null;
+		
+		/** The search index of the current map, created on the first search. */
+		private MidiInstrumentIndex instrumentIndex = null;
+		
+		private final Timer searchTimer;
+		
+		private final ChangeListener indexListener = new ChangeListener() {
+			public void
+			stateChanged(ChangeEvent e) { searchTimer.restart(); }
+		};
+		
 		MidiInstrumentsPane() {
+			searchTimer = new Timer(SEARCH_DELAY, new ActionListener() {
+				public void
+				actionPerformed(ActionEvent e) { updateSearch(); }
+			});
+			searchTimer.setRepeats(false);
+			
 			actionEditInstrument.putValue(Action.SMALL_ICON, Res.iconEdit16);
 			actionRemove.putValue(Action.SMALL_ICON, Res.iconDelete16);
 			
@@ -207,16 +255,98 @@ public class MidiInstrumentMapsPage extends NavigationPage {
 		
 			midiInstrumentTree.setCellRenderer(renderer);
 			
+			tfSearch.setToolTipText(i18n.getLabel("MidiInstrumentMapsPage.tfSearch.tt"));
+			tfSearch.getDocument().addDocumentListener(new DocumentListener() {
+				public void
+				insertUpdate(DocumentEvent e) { searchTimer.restart(); }
+				
+				public void
+				removeUpdate(DocumentEvent e) { searchTimer.restart(); }
+				
+				public void
+				changedUpdate(DocumentEvent e) { }
+			});
+			
 			JPanel p = new JPanel();
 			p.setLayout(new BorderLayout());
 			p.setBorder(BorderFactory.createEmptyBorder(3, 3, 3, 3));
 			
+			JPanel p2 = new JPanel();
+			p2.setLayout(new BorderLayout());
+			p2.setBorder(BorderFactory.createEmptyBorder(0, 0, 3, 0));
+			p2.add(tfSearch);
+			p.add(p2, BorderLayout.NORTH);
+			
 			p.add(sp);
 			
 			add(p);
 			
 			setAlignmentX(LEFT_ALIGNMENT);
 		}
+		
+		/**
+		 * Shows the specified map using a tree model which retrieves
+		 * the instruments of each bank when the bank is first expanded.
+		 * The map is set to the superclass first, so that its map state,
+		 * which is used by the inherited actions, is kept up to date.
+		 */
+		@Override
+		public void
+		setMidiInstrumentMap(MidiInstrumentMap map) {
+			super.setMidiInstrumentMap(map);
+			
+			if(treeModel != null) treeModel.uninstall();
+			
+			if(instrumentIndex != null) {
+				instrumentIndex.removeChangeListener(indexListener);
+				instrumentIndex.uninstall();
+				instrumentIndex = null;
+			}
+			
+			this.map = map;
+			searchModel = null;
+			treeModel = map == null ? null : new LazyMidiInstrumentTreeModel(map);
+			midiInstrumentTree.setModel(treeModel);
+			updateSearch();
+		}
+		
+		/**
+		 * Shows the instruments matching the text in the search field,
+		 * or the whole map if the search field is empty.
+		 */
+		private void
+		updateSearch() {
+			searchTimer.stop();
+			
+			String query = tfSearch.getText().trim();
+			if(map == null || query.isEmpty()) {
+				if(midiInstrumentTree.getModel() != treeModel) {
+					midiInstrumentTree.setModel(treeModel);
+				}
+				return;
+			}
+			
+			if(instrumentIndex == null) {
+				instrumentIndex = new MidiInstrumentIndex(map);
+				instrumentIndex.addChangeListener(indexListener);
+			}
+			
+			long time = System.nanoTime();
+			MidiInstrument[] instrs = instrumentIndex.search(query);
+			time = (System.nanoTime() - time) / 1000;
+			
+			CC.getLogger().fine (
+				"Found " + instrs.length + " instruments matching \"" + query + "\" in " +
+				time + "\u00b5s"
+			);
+			
+			if(searchModel == null) searchModel = new MidiInstrumentSearchModel(map, instrs);
+			else searchModel.setInstruments(instrs);
+			
+			if(midiInstrumentTree.getModel() != searchModel) {
+				midiInstrumentTree.setModel(searchModel);
+			}
+		}
 	}
 	
 	private class EditMap extends AbstractAction {
@@ -61,11 +61,6 @@ import com.grigoriliev.jsampler.event.ListListener;
 import com.grigoriliev.jsampler.event.MidiDeviceListEvent;
 import com.grigoriliev.jsampler.event.MidiDeviceListListener;
 
-import com.grigoriliev.jsampler.task.Channel.LoadEngine;
-import com.grigoriliev.jsampler.task.Channel.LoadInstrument;
-import com.grigoriliev.jsampler.task.Channel.SetAudioOutputDevice;
-import com.grigoriliev.jsampler.task.Channel.SetMidiInputChannel;
-import com.grigoriliev.jsampler.task.Channel.SetMidiInputPort;
 import com.grigoriliev.jsampler.swing.view.SHF;
 import com.grigoriliev.jsampler.swing.view.std.JSNewMidiDeviceDlg;
 import com.grigoriliev.jsampler.swing.view.std.JSNewAudioDeviceDlg;
@@ -800,66 +795,55 @@ class ConfirmationWizardPage extends WizardPage {
 	/**
 	 * Invoked when the user clicks the 'Finish' button
 	 * while this page is the current page of the wizard.
+	 * The channel is created and configured by a single task.
 	 * @return <code>true</code>
 	 */
 	public boolean
 	mayFinish() {
-		final com.grigoriliev.jsampler.task.Channel.Add ac = new com.grigoriliev.jsampler.task.Channel.Add();
+		final ChannelSetupTask t = new ChannelSetupTask();
+		ChannelSetupTask.Setup s = t.addChannel(-1);
 		
-		ac.addTaskListener(new TaskListener() {
-			public void
-			taskPerformed(TaskEvent e) {
-				if(ac.doneWithErrors()) return;
-				doIt(ac.getResult());
-			}
-		});
-		
-		CC.getTaskQueue().add(ac);
-		
-		return true;
-	}
-	
-	private void
-	doIt(int chn) {
-		if(getEngine() != null)
-			CC.getTaskQueue().add(new LoadEngine(getEngine().getName(), chn));
-		
-		/*if(getMidiDPort() != null) CC.getTaskQueue().add (
-			new SetChannelMidiInputPort(chn, getMidiPort().)
-		);*/
+		if(getEngine() != null) s.engine = getEngine().getName();
 		
 		MidiInputDevice d = getMidiDevice();
 		if(d != null) {
-			CC.getTaskQueue().add(new SetMidiInputChannel(chn, d.getDeviceId()));
+			s.midiDevice = d.getDeviceId();
 			
 			if(getMidiPort() != null) {
-				int port = -1;
 				for(int i = 0; i < d.getMidiPortCount(); i++) {
 					if(d.getMidiPort(i) == getMidiPort()) {
-						port = i;
+						s.midiPort = i;
 						break;
 					}
 				}
-				
-				if(port != -1) CC.getTaskQueue().add (
-					new SetMidiInputPort(chn, port)
-				);
 			}
 			
+			s.midiChannel = (getMidiChannel() == -1 ? -1 : getMidiChannel() - 1);
+		}
 		
-			int mc = (getMidiChannel() == -1 ? -1 : getMidiChannel() - 1);
-			CC.getTaskQueue().add(new SetMidiInputChannel(chn, mc));
+		if(getAudioDevice() != null) s.audioDevice = getAudioDevice().getDeviceId();
+		
+		if(getInstrumentFile().length() > 0) {
+			s.instrumentFile = getInstrumentFile();
+			s.instrumentIndex = getInstrumentIndex();
 		}
-			
-			
 		
-		if(getAudioDevice() != null) CC.getTaskQueue().add (
-			new SetAudioOutputDevice(chn, getAudioDevice().getDeviceId())
-		);
+		final long time = System.nanoTime();
+		t.addTaskListener(new TaskListener() {
+			public void
+			taskPerformed(TaskEvent e) {
+				if(t.doneWithErrors()) return;
+				
+				long l = (System.nanoTime() - time) / 1000000;
+				CC.getLogger().fine (
+					"Created channel " + t.getResult()[0] + " in " + l + "ms"
+				);
+			}
+		});
 		
-		if(getInstrumentFile().length() > 0) CC.getTaskQueue().add (
-			new LoadInstrument(getInstrumentFile(), getInstrumentIndex(), chn)
-		);
+		CC.getTaskQueue().add(t);
+		
+		return true;
 	}
 	
 	/**
@@ -0,0 +1,152 @@
+/*
+ *   JSampler - a front-end for LinuxSampler
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of JSampler.
+ *
+ *   JSampler is free software: you can redistribute it and/or modify it under
+ *   the terms of the GNU General Public License as published by the Free
+ *   Software Foundation, either version 3 of the License, or (at your option)
+ *   any later version.
+ *
+ *   JSampler is distributed in the hope that it will be useful, but WITHOUT
+ *   ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *   FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ *   more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with JSampler. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.grigoriliev.jsampler.classic.view;
+
+import java.util.HashSet;
+import java.util.Vector;
+
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.EventListenerList;
+
+import com.grigoriliev.jsampler.CC;
+import com.grigoriliev.jsampler.OrchestraInstrument;
+import com.grigoriliev.jsampler.OrchestraModel;
+
+import com.grigoriliev.jsampler.event.OrchestraAdapter;
+import com.grigoriliev.jsampler.event.OrchestraEvent;
+
+
+/**
+ * An in-memory inverted index of the instruments in an orchestra.
+ * The instruments are indexed by the lower case words in their names,
+ * descriptions and file paths. The index is kept in sync with the orchestra
+ * by incremental updates, until {@link #uninstall} is invoked.
+ * @author Grigor Iliev
+ */
+class OrchestraIndex {
+	private final OrchestraModel orchestra;
+	
+	private final TextIndex<OrchestraInstrument> index = new TextIndex<OrchestraInstrument>();
+	
+	private final EventListenerList listenerList = new EventListenerList();
+	private final Handler handler = new Handler();
+	
+	/**
+	 * Creates a new instance of <code>OrchestraIndex</code>
+	 * and indexes all instruments in the specified orchestra.
+	 * @param orchestra The orchestra to index.
+	 */
+	OrchestraIndex(OrchestraModel orchestra) {
+		this.orchestra = orchestra;
+		
+		long time = System.nanoTime();
+		for(int i = 0; i < orchestra.getInstrumentCount(); i++) add(orchestra.getInstrument(i));
+		time = (System.nanoTime() - time) / 1000000;
+		
+		CC.getLogger().fine (
+			"Indexed " + index.size() + " instruments of orchestra " +
+			orchestra + " in " + time + "ms"
+		);
+		
+		orchestra.addOrchestraListener(handler);
+	}
+	
+	/** Gets the indexed orchestra. */
+	public OrchestraModel
+	getOrchestra() { return orchestra; }
+	
+	/** Stops the tracking of the changes in the orchestra. */
+	public void
+	uninstall() { orchestra.removeOrchestraListener(handler); }
+	
+	/**
+	 * Registers the specified listener to be notified
+	 * when the index is updated due to a change in the orchestra.
+	 */
+	public void
+	addChangeListener(ChangeListener l) { listenerList.add(ChangeListener.class, l); }
+	
+	/** Removes the specified listener. */
+	public void
+	removeChangeListener(ChangeListener l) { listenerList.remove(ChangeListener.class, l); }
+	
+	private void
+	fireStateChanged() {
+		ChangeEvent e = new ChangeEvent(this);
+		Object[] listeners = listenerList.getListenerList();
+		for(int i = listeners.length - 2; i >= 0; i -= 2) {
+			((ChangeListener)listeners[i + 1]).stateChanged(e);
+		}
+	}
+	
+	private void
+	add(OrchestraInstrument instr) {
+		Vector<String> v = new Vector<String>();
+		TextIndexUtils.tokenize(instr.getName(), v);
+		TextIndexUtils.tokenize(instr.getDescription(), v);
+		TextIndexUtils.tokenize(instr.getFilePath(), v);
+		index.add(instr, v);
+	}
+	
+	/**
+	 * Finds the instruments matching the specified query. An instrument matches
+	 * if for each word in the query, its name, description or file path
+	 * contains a word starting with that query word.
+	 * @param query The words to search for.
+	 * @return The matching instruments, in no particular order.
+	 */
+	public OrchestraInstrument[]
+	search(String query) {
+		Vector<String> tokens = new Vector<String>();
+		TextIndexUtils.tokenize(query, tokens);
+		HashSet<OrchestraInstrument> result = index.search(tokens);
+		return result.toArray(new OrchestraInstrument[result.size()]);
+	}
+	
+	private class Handler extends OrchestraAdapter {
+		/** Invoked when an instrument is added to the orchestra. */
+		@Override
+		public void
+		instrumentAdded(OrchestraEvent e) {
+			add(e.getInstrument());
+			fireStateChanged();
+		}
+		
+		/** Invoked when an instrument is removed from the orchestra. */
+		@Override
+		public void
+		instrumentRemoved(OrchestraEvent e) {
+			index.remove(e.getInstrument());
+			fireStateChanged();
+		}
+		
+		/** Invoked when the settings of an instrument are changed. */
+		@Override
+		public void
+		instrumentChanged(OrchestraEvent e) {
+			index.remove(e.getInstrument());
+			add(e.getInstrument());
+			fireStateChanged();
+		}
+	}
+}
@@ -30,20 +30,41 @@ import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Vector;
+
+import java.util.logging.Level;
+
 import javax.swing.BorderFactory;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
 import javax.swing.JComboBox;
 import javax.swing.JComponent;
+import javax.swing.JMenuItem;
+import javax.swing.JPopupMenu;
 import javax.swing.JScrollPane;
 import javax.swing.JSeparator;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.TransferHandler;
 
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
 import com.grigoriliev.jsampler.juife.swing.LinkButton;
 import com.grigoriliev.jsampler.juife.swing.NavigationPage;
 
+import com.grigoriliev.jsampler.AudioDeviceModel;
 import com.grigoriliev.jsampler.CC;
 import com.grigoriliev.jsampler.DefaultOrchestraModel;
+import com.grigoriliev.jsampler.HF;
+import com.grigoriliev.jsampler.MidiDeviceModel;
 import com.grigoriliev.jsampler.OrchestraInstrument;
 import com.grigoriliev.jsampler.OrchestraModel;
 
@@ -57,6 +78,8 @@ import com.grigoriliev.jsampler.view.JSChannelsPane;
 import com.grigoriliev.jsampler.swing.view.InstrumentTable;
 import com.grigoriliev.jsampler.swing.view.SHF;
 
+import com.grigoriliev.jsampler.jlscp.SamplerEngine;
+
 import static com.grigoriliev.jsampler.classic.view.ClassicI18n.i18n;
 
 
@@ -65,12 +88,34 @@ import static com.grigoriliev.jsampler.classic.view.ClassicI18n.i18n;
  * @author Grigor Iliev
  */
 public class OrchestrasPage extends NavigationPage {
+	/**
+	 * The time in milliseconds to wait for more typing
+	 * or orchestra changes before filtering again.
+	 */
+	private final static int REFILTER_DELAY = 200;
+	
 	private final JComboBox cbOrchestras = new JComboBox();
 	private final InstrumentTable instrumentTable = new InstrumentTable(new InstrTableModel());
+	private final boolean dragEnabled = instrumentTable.getDragEnabled();
+	
+	private final JTextField tfFilter = new JTextField();
+	
+	/** The indexes of the orchestras which have been filtered. */
+	private final HashMap<OrchestraModel, OrchestraIndex> indexes =
+		new HashMap<OrchestraModel, OrchestraIndex>();
+	
+	/** The filter results shown in the table, or <code>null</code> if not filtered. */
+	private DefaultOrchestraModel filteredModel = null;
+	private SortInstruments sortInstruments = null;
+	private final Timer refilterTimer;
 	
 	private final LinkButton lnkManageOrchestras =
 		new LinkButton(i18n.getButtonLabel("OrchestrasPage.lnkManageOrchestras"));
 	
+	private final JPopupMenu instrumentMenu = new JPopupMenu();
+	private final JMenuItem miLoadIntoChannels =
+		new JMenuItem(i18n.getMenuLabel("OrchestrasPage.loadIntoChannels"));
+	
 	
 	/** Creates a new instance of OrchestrasPage */
 	public OrchestrasPage() {
@@ -107,6 +152,25 @@ public class OrchestrasPage extends NavigationPage {
 		
 		add(Box.createRigidArea(new Dimension(0, 5)));
 		
+		tfFilter.setToolTipText(i18n.getLabel("OrchestrasPage.tfFilter.tt"));
+		d = new Dimension(Short.MAX_VALUE, tfFilter.getPreferredSize().height);
+		tfFilter.setMaximumSize(d);
+		tfFilter.setAlignmentX(LEFT_ALIGNMENT);
+		add(tfFilter);
+		
+		add(Box.createRigidArea(new Dimension(0, 5)));
+		
+		refilterTimer = new Timer(REFILTER_DELAY, new ActionListener() {
+			public void
+			actionPerformed(ActionEvent e) { updateFilter(); }
+		});
+		refilterTimer.setRepeats(false);
+		
+		instrumentTable.getSelectionModel().setSelectionMode (
+			ListSelectionModel.MULTIPLE_INTERVAL_SELECTION
+		);
+		instrumentMenu.add(miLoadIntoChannels);
+		
 		JScrollPane sp = new DnDScrollPane(instrumentTable);
 		sp.setAlignmentX(LEFT_ALIGNMENT);
 		add(sp);
@@ -134,9 +198,71 @@ public class OrchestrasPage extends NavigationPage {
 				if(instr == null) return;
 				loadInstrument(instr);
 			}
+			
+			public void
+			mousePressed(MouseEvent e) {
+				if(e.isPopupTrigger()) showInstrumentMenu(e);
+			}
+			
+			public void
+			mouseReleased(MouseEvent e) {
+				if(e.isPopupTrigger()) showInstrumentMenu(e);
+			}
+		});
+		
+		miLoadIntoChannels.addActionListener(new ActionListener() {
+			public void
+			actionPerformed(ActionEvent e) { loadInstruments(getSelectedInstruments()); }
+		});
+		
+		// the filter is applied when the typing pauses
+		tfFilter.getDocument().addDocumentListener(new DocumentListener() {
+			public void
+			insertUpdate(DocumentEvent e) { refilterTimer.restart(); }
+			
+			public void
+			removeUpdate(DocumentEvent e) { refilterTimer.restart(); }
+			
+			public void
+			changedUpdate(DocumentEvent e) { }
 		});
 	}
 	
+	private void
+	showInstrumentMenu(MouseEvent e) {
+		int row = instrumentTable.rowAtPoint(e.getPoint());
+		if(row != -1 && !instrumentTable.isRowSelected(row)) {
+			instrumentTable.setRowSelectionInterval(row, row);
+		}
+		
+		miLoadIntoChannels.setEnabled(instrumentTable.getSelectedRowCount() > 0);
+		instrumentMenu.show(e.getComponent(), e.getX(), e.getY());
+	}
+	
+	/** Gets the selected instruments in the order they appear in the table. */
+	private OrchestraInstrument[]
+	getSelectedInstruments() {
+		int[] rows = instrumentTable.getSelectedRows();
+		OrchestraInstrument[] instrs = new OrchestraInstrument[rows.length];
+		for(int i = 0; i < rows.length; i++) {
+			int idx = instrumentTable.convertRowIndexToModel(rows[i]);
+			instrs[i] = instrumentTable.getModel().getOrchestraModel().getInstrument(idx);
+		}
+		
+		return instrs;
+	}
+	
+	/**
+	 * Determines whether the specified channel has an audio output device
+	 * but no instrument loaded, so that an instrument can be loaded into it.
+	 */
+	private static boolean
+	isFreeChannel(JSChannel c) {
+		return (c.getChannelInfo().getInstrumentName() == null ||
+			c.getChannelInfo().getInstrumentStatus() < -1) &&
+			c.getChannelInfo().getAudioOutputDevice() != -1;
+	}
+	
 	private void
 	loadInstrument(OrchestraInstrument instr) {
 		JSChannelsPane cp = CC.getMainFrame().getSelectedChannelsPane();
@@ -145,12 +271,10 @@ public class OrchestrasPage extends NavigationPage {
 		if(cp.hasSelectedChannel()) chn = cp.getSelectedChannels()[0];
 		if(chn == null) {
 			for(JSChannel c : cp.getChannels()) {
-				if( (c.getChannelInfo().getInstrumentName() == null ||
-					c.getChannelInfo().getInstrumentStatus() < -1) &&
-					c.getChannelInfo().getAudioOutputDevice() != -1 ) {
+				if(isFreeChannel(c)) {
 					chn = c;
 					break;
-				} 
+				}
 			}
 		}
 		
@@ -162,6 +286,62 @@ public class OrchestrasPage extends NavigationPage {
 		chn.getModel().loadBackendInstrument(instr.getFilePath(), instr.getInstrumentIndex());
 	}
 	
+	/**
+	 * Loads each of the specified instruments into its own channel of the
+	 * selected channels pane. The selected channels are used first, then the
+	 * channels without instrument, and new channels are created for the rest.
+	 * All channels are set up by a single task.
+	 */
+	private void
+	loadInstruments(OrchestraInstrument[] instrs) {
+		if(instrs.length == 0) return;
+		
+		JSChannelsPane cp = CC.getMainFrame().getSelectedChannelsPane();
+		Vector<JSChannel> chns = new Vector<JSChannel>();
+		if(cp.hasSelectedChannel()) {
+			for(JSChannel c : cp.getSelectedChannels()) chns.add(c);
+		}
+		
+		for(JSChannel c : cp.getChannels()) {
+			if(chns.size() >= instrs.length) break;
+			if(!chns.contains(c) && isFreeChannel(c)) chns.add(c);
+		}
+		
+		// the new channels are connected to the first audio and MIDI devices
+		int audioDev = -1;
+		AudioDeviceModel[] ads = CC.getSamplerModel().getAudioDevices();
+		if(ads.length > 0) audioDev = ads[0].getDeviceId();
+		
+		int midiDev = -1;
+		MidiDeviceModel[] mds = CC.getSamplerModel().getMidiDevices();
+		if(mds.length > 0) midiDev = mds[0].getDeviceId();
+		
+		ChannelSetupTask t = new ChannelSetupTask();
+		for(int i = 0; i < instrs.length; i++) {
+			String engine = instrs[i].getEngine();
+			ChannelSetupTask.Setup s;
+			
+			if(i < chns.size()) {
+				JSChannel c = chns.get(i);
+				s = t.addChannel(c.getModel().getChannelId());
+				SamplerEngine e = c.getChannelInfo().getEngine();
+				if(engine != null && (e == null || !engine.equals(e.getName()))) {
+					s.engine = engine;
+				}
+			} else {
+				s = t.addChannel(-1);
+				s.engine = engine;
+				s.audioDevice = audioDev;
+				s.midiDevice = midiDev;
+			}
+			
+			s.instrumentFile = instrs[i].getFilePath();
+			s.instrumentIndex = instrs[i].getInstrumentIndex();
+		}
+		
+		CC.getTaskQueue().add(t);
+	}
+	
 	/**
 	 * Gets the index of the orchestra whose instruments are shown.
 	 * @return The position of the currently selected orchestra,
@@ -180,15 +360,127 @@ public class OrchestrasPage extends NavigationPage {
 	
 	private void
 	orchestraChanged() {
-		OrchestraModel om = (OrchestraModel)cbOrchestras.getSelectedItem();
-		if(om == null) om = new DefaultOrchestraModel();
-		instrumentTable.getModel().setOrchestraModel(om);
+		updateFilter();
 		
-		String s = om.getDescription();
+		OrchestraModel om = (OrchestraModel)cbOrchestras.getSelectedItem();
+		String s = om == null ? null : om.getDescription();
 		if(s != null && s.length() == 0) s = null;
 		cbOrchestras.setToolTipText(s);
 	}
 	
+	/** Gets the index of the specified orchestra, creating it on first use. */
+	private OrchestraIndex
+	getIndex(OrchestraModel om) {
+		OrchestraIndex idx = indexes.get(om);
+		if(idx != null) return idx;
+		
+		idx = new OrchestraIndex(om);
+		idx.addChangeListener(getHandler());
+		indexes.put(om, idx);
+		return idx;
+	}
+	
+	/**
+	 * Shows the instruments of the selected orchestra that match the text
+	 * in the filter field, or all instruments if the field is empty.
+	 * The matching instruments are looked up in the orchestra's index
+	 * and sorted by name in the background.
+	 */
+	private void
+	updateFilter() {
+		refilterTimer.stop();
+		if(sortInstruments != null) {
+			sortInstruments.cancel(true);
+			sortInstruments = null;
+		}
+		
+		OrchestraModel om = (OrchestraModel)cbOrchestras.getSelectedItem();
+		String query = tfFilter.getText().trim();
+		
+		if(om == null || query.isEmpty()) {
+			showInstruments(om == null ? new DefaultOrchestraModel() : om, false);
+			return;
+		}
+		
+		sortInstruments = new SortInstruments(getIndex(om).search(query));
+		sortInstruments.execute();
+	}
+	
+	/**
+	 * Shows the specified instruments in the table.
+	 * @param om The orchestra whose instruments should be shown.
+	 * @param filtered Specifies whether <code>om</code> holds filter results,
+	 * which are a temporary copy and shouldn't be edited. The previous
+	 * filter results are dropped as a whole.
+	 */
+	private void
+	showInstruments(OrchestraModel om, boolean filtered) {
+		instrumentTable.getModel().setOrchestraModel(om);
+		instrumentTable.setDragEnabled(dragEnabled && !filtered);
+		
+		filteredModel = filtered ? (DefaultOrchestraModel)om : null;
+	}
+	
+	/** Sorts the filter results by name in the background. */
+	private class SortInstruments extends SwingWorker<OrchestraInstrument[], Void> {
+		private final OrchestraInstrument[] instruments;
+		
+		/** The names are taken on the event-dispatching thread. */
+		private final String[] names;
+		
+		SortInstruments(OrchestraInstrument[] instruments) {
+			this.instruments = instruments;
+			names = new String[instruments.length];
+			for(int i = 0; i < instruments.length; i++) {
+				String s = instruments[i].getName();
+				names[i] = s == null ? "" : s;
+			}
+		}
+		
+		@Override
+		protected OrchestraInstrument[]
+		doInBackground() {
+			long time = System.nanoTime();
+			
+			Integer[] order = new Integer[instruments.length];
+			for(int i = 0; i < order.length; i++) order[i] = i;
+			
+			Arrays.sort(order, new Comparator<Integer>() {
+				public int
+				compare(Integer i1, Integer i2) {
+					return String.CASE_INSENSITIVE_ORDER.compare(names[i1], names[i2]);
+				}
+			});
+			
+			OrchestraInstrument[] instrs = new OrchestraInstrument[order.length];
+			for(int i = 0; i < order.length; i++) instrs[i] = instruments[order[i]];
+			
+			time = (System.nanoTime() - time) / 1000000;
+			CC.getLogger().fine("Sorted " + instrs.length + " instruments in " + time + "ms");
+			
+			return instrs;
+		}
+		
+		@Override
+		protected void
+		done() {
+			// the results of a superseded filter are discarded
+			if(isCancelled() || sortInstruments != this) return;
+			sortInstruments = null;
+			
+			OrchestraInstrument[] instrs;
+			try { instrs = get(); }
+			catch(Exception x) {
+				CC.getLogger().log(Level.INFO, HF.getErrorMessage(x), x);
+				return;
+			}
+			
+			DefaultOrchestraModel om = new DefaultOrchestraModel();
+			for(OrchestraInstrument instr : instrs) om.addInstrument(instr);
+			showInstruments(om, true);
+		}
+	}
+	
 	public class DnDScrollPane extends JScrollPane {
 		private InstrumentTable instrumentTable;
 		
@@ -213,6 +505,9 @@ public class OrchestrasPage extends NavigationPage {
 						if(cbOrchestras.getSelectedItem() == null) {
 							return false;
 						}
+						
+						// the filter results shouldn't be edited
+						if(filteredModel != null) return false;
 				
 						return super.canImport(comp, flavors);
 					}	
@@ -274,7 +569,9 @@ public class OrchestrasPage extends NavigationPage {
 	private Handler
 	getHandler() { return eventHandler; }
 	
-	private class Handler extends OrchestraAdapter implements ListListener<OrchestraModel> {
+	private class Handler extends OrchestraAdapter
+				implements ListListener<OrchestraModel>, ChangeListener {
+		
 		/** Invoked when an orchestra is added to the orchestra list. */
 		public void
 		entryAdded(ListEvent<OrchestraModel> e) {
@@ -287,6 +584,24 @@ public class OrchestrasPage extends NavigationPage {
 		entryRemoved(ListEvent<OrchestraModel> e) {
 			cbOrchestras.removeItem(e.getEntry());
 			if(cbOrchestras.getItemCount() == 0) cbOrchestras.setEnabled(false);
+			
+			OrchestraIndex idx = indexes.remove(e.getEntry());
+			if(idx != null) {
+				idx.removeChangeListener(this);
+				idx.uninstall();
+			}
+		}
+		
+		/**
+		 * Invoked when the index of an orchestra is updated. The filter
+		 * is applied again after the changes in the orchestra settle down.
+		 */
+		public void
+		stateChanged(ChangeEvent e) {
+			if(tfFilter.getText().trim().isEmpty()) return;
+			
+			OrchestraIndex idx = (OrchestraIndex)e.getSource();
+			if(idx.getOrchestra() == cbOrchestras.getSelectedItem()) refilterTimer.restart();
 		}
 		
 		/** Invoked when the name of orchestra is changed. */
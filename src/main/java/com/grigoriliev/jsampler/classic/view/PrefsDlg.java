@@ -47,7 +47,9 @@ import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JSpinner;
 import javax.swing.JTabbedPane;
+import javax.swing.SpinnerNumberModel;
 
 import com.grigoriliev.jsampler.juife.swing.EnhancedDialog;
 import com.grigoriliev.jsampler.juife.swing.JuifeUtils;
@@ -55,7 +57,6 @@ import com.grigoriliev.jsampler.juife.swing.JuifeUtils;
 import com.grigoriliev.jsampler.CC;
 import com.grigoriliev.jsampler.JSI18n;
 import com.grigoriliev.jsampler.JSUtils;
-import com.grigoriliev.jsampler.LSConsoleModel;
 import com.grigoriliev.jsampler.Prefs;
 import com.grigoriliev.jsampler.swing.view.SHF;
 import com.grigoriliev.jsampler.swing.view.std.JSAdvancedGeneralPropsDlg;
@@ -321,6 +322,15 @@ class ViewPane extends JPanel {
 		new JLabel(i18n.getLabel("ViewPane.lIfaceFont"));
 	private final JComboBox cbIfaceFont = new JComboBox();
 	
+	private final JLabel lChannelRefreshRate =
+		new JLabel(i18n.getLabel("ViewPane.lChannelRefreshRate"));
+	private final JSpinner spChannelRefreshRate = new JSpinner (
+		new SpinnerNumberModel(ClassicPrefs.getChannelRefreshRate(), 1, 100, 1)
+	);
+	
+	private final JCheckBox checkVirtualChannelList =
+		new JCheckBox(i18n.getLabel("ViewPane.checkVirtualChannelList"));
+	
 	private final JCheckBox checkBorderColor =
 		new JCheckBox(i18n.getLabel("ViewPane.channelBorderColor"));
 	private final JSColorButton btnBorderColor = new JSColorButton(Color.WHITE);
@@ -388,6 +398,27 @@ class ViewPane extends JPanel {
 		
 		add(fontPane);
 		add(Box.createRigidArea(new Dimension(0, 6)));
+		
+		JPanel refreshPane = new JPanel();
+		refreshPane.setLayout(new BoxLayout(refreshPane, BoxLayout.X_AXIS));
+		refreshPane.add(lChannelRefreshRate);
+		refreshPane.add(Box.createRigidArea(new Dimension(5, 0)));
+		spChannelRefreshRate.setMaximumSize(spChannelRefreshRate.getPreferredSize());
+		refreshPane.add(spChannelRefreshRate);
+		refreshPane.add(Box.createGlue());
+		
+		add(refreshPane);
+		add(Box.createRigidArea(new Dimension(0, 6)));
+		
+		checkVirtualChannelList.setSelected(ClassicPrefs.getVirtualChannelList());
+		
+		JPanel virtualListPane = new JPanel();
+		virtualListPane.setLayout(new BoxLayout(virtualListPane, BoxLayout.X_AXIS));
+		virtualListPane.add(checkVirtualChannelList);
+		virtualListPane.add(Box.createGlue());
+		
+		add(virtualListPane);
+		add(Box.createRigidArea(new Dimension(0, 6)));
 		add(createCustomColorsPane());
 		
 		setBorder(BorderFactory.createEmptyBorder(6, 6, 6, 6));
@@ -592,6 +623,10 @@ class ViewPane extends JPanel {
 			JOptionPane.INFORMATION_MESSAGE
 		);
 		
+		int i = (Integer)spChannelRefreshRate.getValue();
+		ClassicPrefs.setChannelRefreshRate(i);
+		ClassicPrefs.setVirtualChannelList(checkVirtualChannelList.isSelected());
+		
 		///***///
 		
 		b = checkBorderColor.isSelected();
@@ -645,6 +680,26 @@ class ViewPane extends JPanel {
 }
 
 class ConsolePane extends JSLSConsolePropsPane {
+	private final JLabel lMaxLines = new JLabel(i18n.getLabel("ConsolePane.lMaxLines"));
+	private final JSpinner spMaxLines = new JSpinner (
+		new SpinnerNumberModel(ClassicPrefs.getLSConsoleMaxLines(), 0, 1000000, 500)
+	);
+	
+	ConsolePane() {
+		JPanel p = new JPanel();
+		p.setLayout(new BoxLayout(p, BoxLayout.X_AXIS));
+		p.add(lMaxLines);
+		p.add(Box.createRigidArea(new Dimension(5, 0)));
+		spMaxLines.setMaximumSize(spMaxLines.getPreferredSize());
+		spMaxLines.setToolTipText(i18n.getLabel("ConsolePane.spMaxLines.tt"));
+		p.add(spMaxLines);
+		p.add(Box.createGlue());
+		p.setBorder(BorderFactory.createEmptyBorder(6, 6, 6, 6));
+		p.setAlignmentX(JPanel.LEFT_ALIGNMENT);
+		
+		add(p);
+	}
+	
 	@Override
 	protected void
 	clearConsoleHistory() {
@@ -657,24 +712,9 @@ class ConsolePane extends JSLSConsolePropsPane {
 	apply() {
 		super.apply();
 		
-		MainFrame frame = (MainFrame)SHF.getMainFrame();
-		
-		LSConsoleModel model = frame.getLSConsoleModel();
-		model.setCommandHistorySize(preferences().getIntProperty(LS_CONSOLE_HISTSIZE));
-		
-		int c = preferences().getIntProperty(LS_CONSOLE_TEXT_COLOR);
-		frame.setLSConsoleTextColor(new Color(c));
-		
-		c = preferences().getIntProperty(LS_CONSOLE_BACKGROUND_COLOR);
-		frame.setLSConsoleBackgroundColor(new Color(c));
-		
-		c = preferences().getIntProperty(LS_CONSOLE_NOTIFY_COLOR);
-		frame.setLSConsoleNotifyColor(new Color(c));
-		
-		c = preferences().getIntProperty(LS_CONSOLE_WARNING_COLOR);
-		frame.setLSConsoleWarningColor(new Color(c));
+		ClassicPrefs.setLSConsoleMaxLines((Integer)spMaxLines.getValue());
 		
-		c = preferences().getIntProperty(LS_CONSOLE_ERROR_COLOR);
-		frame.setLSConsoleErrorColor(new Color(c));
+		// The LS Console is not created just to apply the preferences
+		((MainFrame)SHF.getMainFrame()).applyLSConsolePrefs();
 	}
 }
@@ -21,170 +21,303 @@
 
 package com.grigoriliev.jsampler.classic.view;
 
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.MediaTracker;
+
+import java.awt.image.BufferedImage;
+
+import java.io.IOException;
+
 import java.net.URL;
 
+import java.util.HashMap;
+import java.util.logging.Level;
+
+import javax.imageio.ImageIO;
+
 import javax.swing.ImageIcon;
 
+import com.grigoriliev.jsampler.CC;
+
 
 /**
  * This class contains all pixmap resources needed by <b>JS Classic</b> view.
+ * The icons are decoded on first use and are shared by all their users.
  * @author Grigor Iliev
  */
 public class Res {
+	private final static HashMap<String, LazyIcon> icons = new HashMap<String, LazyIcon>();
+	
+	private static int loadedIconCount = 0;
+	private static long iconLoadTime = 0;
 	
 	/** Forbits the instantiation of this class. */
 	private Res() { }
 	
 	protected final static ImageIcon appIcon
-		= new ImageIcon(Res.class.getResource("res/icons/app-icon.png"));
+		= getIcon("res/icons/app-icon.png");
 	
 	protected final static ImageIcon iconClose8
-		= new ImageIcon(Res.class.getResource("res/icons/close8.png"));
+		= getIcon("res/icons/close8.png");
 	
 	protected final static ImageIcon iconNew16
-		= new ImageIcon(Res.class.getResource("res/icons/new16.png"));
+		= getIcon("res/icons/new16.png");
 	
 	protected final static ImageIcon iconEdit16
-		= new ImageIcon(Res.class.getResource("res/icons/edit16.png"));
+		= getIcon("res/icons/edit16.png");
 	
 	protected final static ImageIcon iconCopy16
-		= new ImageIcon(Res.class.getResource("res/icons/Copy16.gif"));
+		= getIcon("res/icons/Copy16.gif");
 	
 	protected final static ImageIcon iconDelete16
-		= new ImageIcon(Res.class.getResource("res/icons/delete16.png"));
+		= getIcon("res/icons/delete16.png");
 	
 	protected final static ImageIcon iconProps16
-		= new ImageIcon(Res.class.getResource("res/icons/Properties16.gif"));
+		= getIcon("res/icons/Properties16.gif");
 	
 	protected final static ImageIcon iconUp16
-		= new ImageIcon(Res.class.getResource("res/icons/Up16.gif"));
+		= getIcon("res/icons/Up16.gif");
 	
 	protected final static ImageIcon iconDown16
-		= new ImageIcon(Res.class.getResource("res/icons/Down16.gif"));
+		= getIcon("res/icons/Down16.gif");
 	
 	protected final static ImageIcon iconBack16
-		= new ImageIcon(Res.class.getResource("res/icons/Back16.gif"));
+		= getIcon("res/icons/Back16.gif");
 	
 	protected final static ImageIcon iconForward16
-		= new ImageIcon(Res.class.getResource("res/icons/Forward16.gif"));
+		= getIcon("res/icons/Forward16.gif");
 	
 	protected final static ImageIcon iconAudioProps16
-		= new ImageIcon(Res.class.getResource("res/icons/Import16.gif"));
+		= getIcon("res/icons/Import16.gif");
 	
 	protected final static ImageIcon iconVolume16
-		= new ImageIcon(Res.class.getResource("res/icons/Volume16.png"));
+		= getIcon("res/icons/Volume16.png");
 	
 	protected final static ImageIcon iconFolder16
-		= new ImageIcon(Res.class.getResource("res/icons/folder16.png"));
+		= getIcon("res/icons/folder16.png");
 	
 	protected final static ImageIcon iconFolderOpen16
-		= new ImageIcon(Res.class.getResource("res/icons/folder_open16.png"));
+		= getIcon("res/icons/folder_open16.png");
 	
 	protected final static ImageIcon iconInstrument16
-		= new ImageIcon(Res.class.getResource("res/icons/instr16.png"));
+		= getIcon("res/icons/instr16.png");
 	
 	protected final static ImageIcon iconExport16
-		= new ImageIcon(Res.class.getResource("res/icons/save16.png"));
+		= getIcon("res/icons/save16.png");
 	
 	protected final static ImageIcon iconDb16
-		= new ImageIcon(Res.class.getResource("res/icons/collection16.png"));
+		= getIcon("res/icons/collection16.png");
 	
 	protected final static ImageIcon iconReload16
-		= new ImageIcon(Res.class.getResource("res/icons/reload16.png"));
+		= getIcon("res/icons/reload16.png");
 	
 	protected final static ImageIcon iconPreferences16
-		= new ImageIcon(Res.class.getResource("res/icons/preferences16.png"));
+		= getIcon("res/icons/preferences16.png");
 	
 	protected final static ImageIcon iconTabNew22
-		= new ImageIcon(Res.class.getResource("res/icons/tab_new22.png"));
+		= getIcon("res/icons/tab_new22.png");
 	
 	protected final static ImageIcon iconTabRemove22
-		= new ImageIcon(Res.class.getResource("res/icons/tab_remove22.png"));
+		= getIcon("res/icons/tab_remove22.png");
 	
 	protected final static ImageIcon iconTabMoveLeft22
-		= new ImageIcon(Res.class.getResource("res/icons/tab_move_left22.png"));
+		= getIcon("res/icons/tab_move_left22.png");
 	
 	protected final static ImageIcon iconTabMoveRight22
-		= new ImageIcon(Res.class.getResource("res/icons/tab_move_right22.png"));
+		= getIcon("res/icons/tab_move_right22.png");
 	
 	protected final static ImageIcon iconFxSends22
-		= new ImageIcon(Res.class.getResource("res/icons/fx_sends22.png"));
+		= getIcon("res/icons/fx_sends22.png");
 	
 	protected final static ImageIcon iconVolume22
-		= new ImageIcon(Res.class.getResource("res/icons/Volume22.png"));
+		= getIcon("res/icons/Volume22.png");
 	
 	protected final static ImageIcon iconFind22
-		= new ImageIcon(Res.class.getResource("res/icons/Find22.png"));
+		= getIcon("res/icons/Find22.png");
 	
 	protected final static ImageIcon iconGoUp22
-		= new ImageIcon(Res.class.getResource("res/icons/GoUp22.png"));
+		= getIcon("res/icons/GoUp22.png");
 	
 	protected final static ImageIcon iconGoBack22
-		= new ImageIcon(Res.class.getResource("res/icons/GoBack22.png"));
+		= getIcon("res/icons/GoBack22.png");
 	
 	protected final static ImageIcon iconGoForward22
-		= new ImageIcon(Res.class.getResource("res/icons/GoForward22.png"));
+		= getIcon("res/icons/GoForward22.png");
 	
 	protected final static ImageIcon iconUp24
-		= new ImageIcon(Res.class.getResource("res/icons/Up22.png"));
+		= getIcon("res/icons/Up22.png");
 	
 	protected final static ImageIcon iconDown24
-		= new ImageIcon(Res.class.getResource("res/icons/Down22.png"));
+		= getIcon("res/icons/Down22.png");
 	
 	protected final static ImageIcon iconFolderOpen22
-		= new ImageIcon(Res.class.getResource("res/icons/folder_open22.png"));
+		= getIcon("res/icons/folder_open22.png");
 	
 	protected final static ImageIcon iconPreferences22
-		= new ImageIcon(Res.class.getResource("res/icons/Preferences22.png"));
+		= getIcon("res/icons/Preferences22.png");
 	
 	protected final static ImageIcon iconReload22
-		= new ImageIcon(Res.class.getResource("res/icons/reload22.png"));
+		= getIcon("res/icons/reload22.png");
 	
 	protected final static ImageIcon iconNew24
-		= new ImageIcon(Res.class.getResource("res/icons/New24.png"));
+		= getIcon("res/icons/New24.png");
 	
 	protected final static ImageIcon iconCopy24
-		= new ImageIcon(Res.class.getResource("res/icons/Copy24.png"));
+		= getIcon("res/icons/Copy24.png");
 	
 	protected final static ImageIcon iconDelete24
-		= new ImageIcon(Res.class.getResource("res/icons/Delete24.png"));
+		= getIcon("res/icons/Delete24.png");
 	
 	protected final static ImageIcon iconMidi24
-		= new ImageIcon(Res.class.getResource("res/icons/midi24.png"));
+		= getIcon("res/icons/midi24.png");
 	
 	protected final static ImageIcon iconVol24
-		= new ImageIcon(Res.class.getResource("res/icons/Vol24.png"));
+		= getIcon("res/icons/Vol24.png");
 	
 	protected final static ImageIcon iconExportSession32
-		= new ImageIcon(Res.class.getResource("res/icons/Save32.png"));
+		= getIcon("res/icons/Save32.png");
 	
 	protected final static ImageIcon iconLoadScript32
-		= new ImageIcon(Res.class.getResource("res/icons/Open32.png"));
+		= getIcon("res/icons/Open32.png");
 	
 	protected final static ImageIcon iconReset32
-		= new ImageIcon(Res.class.getResource("res/icons/purge.png"));
+		= getIcon("res/icons/purge.png");
 	
 	protected final static ImageIcon iconReload32
-		= new ImageIcon(Res.class.getResource("res/icons/reload32.png"));
+		= getIcon("res/icons/reload32.png");
 	
 	protected final static ImageIcon iconInfo32
-		= new ImageIcon(Res.class.getResource("res/icons/info32.png"));
+		= getIcon("res/icons/info32.png");
 	
 	protected final static ImageIcon iconPreferences32
-		= new ImageIcon(Res.class.getResource("res/icons/Preferences32.png"));
+		= getIcon("res/icons/Preferences32.png");
 	
 	protected final static ImageIcon iconDb32
-		= new ImageIcon(Res.class.getResource("res/icons/db32.png"));
+		= getIcon("res/icons/db32.png");
 	
 	protected final static ImageIcon iconWarning32
-		= new ImageIcon(Res.class.getResource("res/icons/warning32.png"));
+		= getIcon("res/icons/warning32.png");
 	
 	protected final static ImageIcon iconQuestion32
-		= new ImageIcon(Res.class.getResource("res/icons/question32.png"));
+		= getIcon("res/icons/question32.png");
 	
 	protected final static ImageIcon iconLinuxSamplerLogo
-		= new ImageIcon(Res.class.getResource("res/LinuxSampler-logo.png"));
+		= getIcon("res/LinuxSampler-logo.png");
 
+	/**
+	 * Gets the icon with the specified name. The icon is decoded
+	 * when it is used for the first time.
+	 * @param name The resource name, relative to the package of this class.
+	 * @return The shared icon instance for the specified name.
+	 */
+	public static ImageIcon
+	getIcon(String name) {
+		synchronized(icons) {
+			LazyIcon icon = icons.get(name);
+			if(icon == null) {
+				icon = new LazyIcon(name);
+				icons.put(name, icon);
+			}
+			return icon;
+		}
+	}
+	
+	/** Gets the number of icons decoded so far. */
+	public static synchronized int
+	getLoadedIconCount() { return loadedIconCount; }
+	
+	/** Gets the total time in milliseconds spent decoding icons. */
+	public static synchronized long
+	getIconLoadTime() { return iconLoadTime / 1000000; }
+	
+	private static synchronized void
+	iconLoaded(long time) {
+		loadedIconCount++;
+		iconLoadTime += time;
+	}
+	
+	/**
+	 * An icon whose image is located and decoded on first use.
+	 */
+	private static class LazyIcon extends ImageIcon {
+		private final String name;
+		private boolean loaded = false;
+		private boolean failed = false;
+		
+		LazyIcon(String name) {
+			this.name = name;
+			setDescription(name);
+		}
+		
+		private synchronized void
+		ensureLoaded() {
+			if(loaded) return;
+			loaded = true;
+			
+			long time = System.nanoTime();
+			URL url = Res.class.getResource(name);
+			BufferedImage img = null;
+			
+			if(url != null) {
+				try { img = ImageIO.read(url); }
+				catch(IOException e) {
+					CC.getLogger().log(Level.INFO, "Failed to load icon: " + name, e);
+				}
+			}
+			
+			if(img != null) {
+				setImage(img);
+			} else if(url != null) {
+				// fall back to the toolkit for the formats not supported by ImageIO
+				ImageIcon icon = new ImageIcon(url);
+				if(icon.getImageLoadStatus() == MediaTracker.COMPLETE) setImage(icon.getImage());
+				else failed = true;
+			} else {
+				CC.getLogger().info("Icon not found: " + name);
+				failed = true;
+			}
+			
+			iconLoaded(System.nanoTime() - time);
+		}
+		
+		@Override
+		public Image
+		getImage() {
+			ensureLoaded();
+			return super.getImage();
+		}
+		
+		@Override
+		public int
+		getImageLoadStatus() {
+			ensureLoaded();
+			return failed ? MediaTracker.ERRORED : super.getImageLoadStatus();
+		}
+		
+		@Override
+		public int
+		getIconWidth() {
+			ensureLoaded();
+			return super.getIconWidth();
+		}
+		
+		@Override
+		public int
+		getIconHeight() {
+			ensureLoaded();
+			return super.getIconHeight();
+		}
+		
+		@Override
+		public void
+		paintIcon(Component c, Graphics g, int x, int y) {
+			ensureLoaded();
+			super.paintIcon(c, g, x, y);
+		}
+	}
+	
 	public static URL getUrl(String path) {
 		URL url = ClassLoader.getSystemClassLoader().getResource(path);
 		if (url == null) {
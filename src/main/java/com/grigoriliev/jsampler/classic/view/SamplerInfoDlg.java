@@ -60,6 +60,9 @@ public class SamplerInfoDlg extends InformationDialog {
 	private final JTextField tfProtocolVersion = new JTextField();
 	private final JTextField tfDbSupport = new JTextField();
 	
+	private final JLabel lStartupTime = new JLabel(i18n.getLabel("SamplerInfoDlg.lStartupTime"));
+	private final JTextField tfStartupTime = new JTextField();
+	
 	
 	/** Creates a new instance of SamplerInfoDlg */
 	public SamplerInfoDlg(Frame owner) {
@@ -98,6 +101,20 @@ public class SamplerInfoDlg extends InformationDialog {
 		tfDbSupport.setOpaque(false);
 		tfDbSupport.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 0));
 		
+		long t = StartupProfiler.getTotalTime();
+		if(t != -1) {
+			tfStartupTime.setText(i18n.getLabel("SamplerInfoDlg.startupTime", t));
+			
+			StringBuilder sb = new StringBuilder("<html>");
+			for(String s : StartupProfiler.getTimeline()) sb.append(s).append("<br>");
+			sb.append("</html>");
+			tfStartupTime.setToolTipText(sb.toString());
+		}
+		
+		tfStartupTime.setEditable(false);
+		tfStartupTime.setOpaque(false);
+		tfStartupTime.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 0));
+		
 		
 		JPanel infoPane = new JPanel();
 		
@@ -123,6 +140,11 @@ public class SamplerInfoDlg extends InformationDialog {
 		gridbag.setConstraints(lDbSupport, c);
 		infoPane.add(lDbSupport);
 		
+		c.gridx = 0;
+		c.gridy = 3;
+		gridbag.setConstraints(lStartupTime, c);
+		infoPane.add(lStartupTime);
+		
 		c.gridx = 1;
 		c.gridy = 0;
 		c.weightx = 1.0;
@@ -141,6 +163,11 @@ public class SamplerInfoDlg extends InformationDialog {
 		gridbag.setConstraints(tfDbSupport, c);
 		infoPane.add(tfDbSupport);
 		
+		c.gridx = 1;
+		c.gridy = 3;
+		gridbag.setConstraints(tfStartupTime, c);
+		infoPane.add(tfStartupTime);
+		
 		//infoPane.setBorder(BorderFactory.createEtchedBorder(EtchedBorder.LOWERED));
 		infoPane.setMaximumSize(infoPane.getPreferredSize());
 		
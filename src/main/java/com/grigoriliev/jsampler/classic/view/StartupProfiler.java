@@ -0,0 +1,106 @@
+/*
+ *   JSampler - a front-end for LinuxSampler
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of JSampler.
+ *
+ *   JSampler is free software: you can redistribute it and/or modify it under
+ *   the terms of the GNU General Public License as published by the Free
+ *   Software Foundation, either version 3 of the License, or (at your option)
+ *   any later version.
+ *
+ *   JSampler is distributed in the hope that it will be useful, but WITHOUT
+ *   ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *   FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ *   more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with JSampler. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.grigoriliev.jsampler.classic.view;
+
+import java.util.Vector;
+
+import com.grigoriliev.jsampler.CC;
+
+
+/**
+ * Records the wall time of the startup phases of the main frame. The timeline
+ * starts with {@link #start} and each call to {@link #mark} ends the current
+ * phase. When {@link #finish} is invoked, the timeline is logged and no more
+ * phases are recorded.
+ * @author Grigor Iliev
+ */
+class StartupProfiler {
+	private static long startTime = -1;
+	private static long lastMark;
+	private static long totalTime = -1;
+	
+	private final static Vector<String> phases = new Vector<String>();
+	private final static Vector<Long> durations = new Vector<Long>();
+	
+	/** Forbids the instantiation of this class. */
+	private
+	StartupProfiler() { }
+	
+	/** Starts the timeline, if it is not already started. */
+	public static synchronized void
+	start() {
+		if(startTime != -1) return;
+		startTime = lastMark = System.nanoTime();
+	}
+	
+	/**
+	 * Ends the current phase.
+	 * @param phase The name of the phase that has just ended.
+	 */
+	public static synchronized void
+	mark(String phase) {
+		if(startTime == -1 || totalTime != -1) return;
+		
+		long time = System.nanoTime();
+		phases.add(phase);
+		durations.add((time - lastMark) / 1000000);
+		lastMark = time;
+	}
+	
+	/**
+	 * Ends the last phase and logs the timeline.
+	 * @param phase The name of the last phase.
+	 */
+	public static synchronized void
+	finish(String phase) {
+		if(startTime == -1 || totalTime != -1) return;
+		
+		mark(phase);
+		totalTime = (lastMark - startTime) / 1000000;
+		
+		StringBuilder sb = new StringBuilder();
+		sb.append("Startup time: ").append(totalTime).append("ms");
+		for(String s : getTimeline()) sb.append("\n  ").append(s);
+		sb.append("\n  (").append(Res.getLoadedIconCount()).append(" icons loaded in ");
+		sb.append(Res.getIconLoadTime()).append("ms)");
+		
+		CC.getLogger().info(sb.toString());
+	}
+	
+	/**
+	 * Gets the total startup time in milliseconds,
+	 * or <code>-1</code> if the startup is not finished.
+	 */
+	public static synchronized long
+	getTotalTime() { return totalTime; }
+	
+	/** Gets the recorded phases along with their durations in milliseconds. */
+	public static synchronized String[]
+	getTimeline() {
+		String[] timeline = new String[phases.size()];
+		for(int i = 0; i < timeline.length; i++) {
+			timeline[i] = phases.get(i) + ": " + durations.get(i) + "ms";
+		}
+		
+		return timeline;
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ *   JSampler - a front-end for LinuxSampler
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of JSampler.
+ *
+ *   JSampler is free software: you can redistribute it and/or modify it under
+ *   the terms of the GNU General Public License as published by the Free
+ *   Software Foundation, either version 3 of the License, or (at your option)
+ *   any later version.
+ *
+ *   JSampler is distributed in the hope that it will be useful, but WITHOUT
+ *   ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *   FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ *   more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with JSampler. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.grigoriliev.jsampler.classic.view;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.TreeMap;
+import java.util.Vector;
+
+
+/**
+ * An in-memory inverted index, which maps lower case words to the items
+ * containing them. The items are added and removed one by one, so
+ * the index can be kept in sync with the model it is built from.
+ * @author Grigor Iliev
+ */
+class TextIndex<T> {
+	/** Maps the indexed words to the items containing them, sorted by word. */
+	private final TreeMap<String, HashSet<T>> index = new TreeMap<String, HashSet<T>>();
+	
+	/** The words under which each item is indexed. */
+	private final HashMap<T, Vector<String>> words = new HashMap<T, Vector<String>>();
+	
+	/** Gets the number of the indexed items. */
+	public int
+	size() { return words.size(); }
+	
+	/**
+	 * Indexes the specified item under the specified words.
+	 * Nothing is done if the item is already indexed.
+	 * @param item The item to add.
+	 * @param v The words contained in the item.
+	 */
+	public void
+	add(T item, Vector<String> v) {
+		if(words.containsKey(item)) return;
+		
+		for(String s : v) {
+			HashSet<T> set = index.get(s);
+			if(set == null) {
+				set = new HashSet<T>();
+				index.put(s, set);
+			}
+			set.add(item);
+		}
+		
+		words.put(item, v);
+	}
+	
+	/** Removes the specified item from the index. */
+	public void
+	remove(T item) {
+		Vector<String> v = words.remove(item);
+		if(v == null) return;
+		
+		for(String s : v) {
+			HashSet<T> set = index.get(s);
+			if(set == null) continue;
+			set.remove(item);
+			if(set.isEmpty()) index.remove(s);
+		}
+	}
+	
+	/**
+	 * Finds the items containing a word that starts with the specified token.
+	 * Override to change how a query word is matched.
+	 * @return A new set with the items found.
+	 */
+	protected HashSet<T>
+	find(String token) { return TextIndexUtils.findByPrefix(index, token); }
+	
+	/**
+	 * Finds the items containing exactly the specified word.
+	 * @return A new set with the items found.
+	 */
+	protected HashSet<T>
+	findExact(String word) {
+		HashSet<T> set = new HashSet<T>();
+		HashSet<T> s = index.get(word);
+		if(s != null) set.addAll(s);
+		return set;
+	}
+	
+	/**
+	 * Finds the items matching all of the specified tokens. The sets of
+	 * the items matching each token are intersected starting from
+	 * the smallest one, and the search stops as soon as nothing is left.
+	 * @param tokens The query words.
+	 * @return The matching items, in no particular order.
+	 */
+	public HashSet<T>
+	search(Collection<String> tokens) {
+		HashSet<T> result = null;
+		for(String s : tokens) {
+			HashSet<T> matches = find(s);
+			
+			if(result == null) result = matches;
+			else if(matches.size() < result.size()) {
+				matches.retainAll(result);
+				result = matches;
+			} else {
+				result.retainAll(matches);
+			}
+			
+			if(result.isEmpty()) break;
+		}
+		
+		return result == null ? new HashSet<T>() : result;
+	}
+}
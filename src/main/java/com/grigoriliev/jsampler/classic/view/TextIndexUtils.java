@@ -0,0 +1,84 @@
+/*
+ *   JSampler - a front-end for LinuxSampler
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of JSampler.
+ *
+ *   JSampler is free software: you can redistribute it and/or modify it under
+ *   the terms of the GNU General Public License as published by the Free
+ *   Software Foundation, either version 3 of the License, or (at your option)
+ *   any later version.
+ *
+ *   JSampler is distributed in the hope that it will be useful, but WITHOUT
+ *   ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *   FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ *   more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with JSampler. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.grigoriliev.jsampler.classic.view;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+
+/**
+ * Helper methods for the in-memory full-text indexes, which map
+ * lower case words to the items containing them.
+ * @author Grigor Iliev
+ */
+class TextIndexUtils {
+	private
+	TextIndexUtils() { }
+	
+	/**
+	 * Splits the specified text into lower case words,
+	 * separated by any character that is not a letter or a digit.
+	 * @param text The text to split, or <code>null</code>.
+	 * @param tokens The collection to which the words are added.
+	 */
+	static void
+	tokenize(String text, Collection<String> tokens) {
+		if(text == null) return;
+		
+		int len = text.length();
+		int start = -1;
+		for(int i = 0; i <= len; i++) {
+			boolean b = i < len && Character.isLetterOrDigit(text.charAt(i));
+			if(b && start == -1) start = i;
+			else if(!b && start != -1) {
+				tokens.add(text.substring(start, i).toLowerCase());
+				start = -1;
+			}
+		}
+	}
+	
+	/**
+	 * Gets the part of the specified index whose words start with the specified prefix.
+	 * @param index The index, sorted by word.
+	 * @param prefix The prefix of the words.
+	 * @return A view of the entries whose words start with the prefix.
+	 */
+	static <V> SortedMap<String, V>
+	getPrefixMap(TreeMap<String, V> index, String prefix) {
+		return index.subMap(prefix, prefix + Character.MAX_VALUE);
+	}
+	
+	/**
+	 * Collects the items of all words starting with the specified prefix.
+	 * @param index The index, sorted by word.
+	 * @param prefix The prefix of the words.
+	 * @return A new set with the items found.
+	 */
+	static <T> HashSet<T>
+	findByPrefix(TreeMap<String, HashSet<T>> index, String prefix) {
+		HashSet<T> set = new HashSet<T>();
+		for(HashSet<T> s : getPrefixMap(index, prefix).values()) set.addAll(s);
+		return set;
+	}
+}
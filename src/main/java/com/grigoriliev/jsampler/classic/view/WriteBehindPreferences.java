@@ -0,0 +1,268 @@
+/*
+ *   JSampler - a front-end for LinuxSampler
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of JSampler.
+ *
+ *   JSampler is free software: you can redistribute it and/or modify it under
+ *   the terms of the GNU General Public License as published by the Free
+ *   Software Foundation, either version 3 of the License, or (at your option)
+ *   any later version.
+ *
+ *   JSampler is distributed in the hope that it will be useful, but WITHOUT
+ *   ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *   FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ *   more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with JSampler. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.grigoriliev.jsampler.classic.view;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import java.util.logging.Level;
+
+import java.util.prefs.AbstractPreferences;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.PreferenceChangeEvent;
+import java.util.prefs.PreferenceChangeListener;
+import java.util.prefs.Preferences;
+
+import com.grigoriliev.jsampler.CC;
+
+
+/**
+ * A write-behind cache in front of a preference node. The values are read
+ * from memory and the changes are written to the underlying node by a
+ * background thread, at most {@link #FLUSH_DELAY} milliseconds after the first
+ * pending change. Multiple changes of the same key are coalesced into a single
+ * write. The pending changes are also written when {@link #flush} is invoked
+ * and when the virtual machine shuts down. Until {@link #startWriteBehind} is
+ * invoked, the changes are written immediately. Changes made directly to the
+ * underlying node are reflected in the cache. The child nodes are cached the
+ * same way, in front of the child nodes of the underlying node.
+ * @author Grigor Iliev
+ */
+class WriteBehindPreferences extends AbstractPreferences {
+	/** The maximum time in milliseconds a change can remain unwritten. */
+	public final static int FLUSH_DELAY = 2000;
+	
+	private final WriteBehindPreferences root;
+	private final Preferences backingNode;
+	private final HashMap<String, String> values = new HashMap<String, String>();
+	
+	/** The pending changes. A <code>null</code> value means that the key is removed. */
+	private LinkedHashMap<String, String> pendingChanges = new LinkedHashMap<String, String>();
+	private boolean flushScheduled = false;
+	
+	private final Object writeLock = new Object();
+	
+	/**
+	 * The thread writing the changes of the whole tree, or <code>null</code>
+	 * if the changes are written immediately. Used only in the root node.
+	 */
+	private volatile ScheduledExecutorService executor = null;
+	
+	/**
+	 * Creates a new instance of <code>WriteBehindPreferences</code>.
+	 * @param backingNode The preference node to which the changes are written.
+	 */
+	WriteBehindPreferences(Preferences backingNode) { this(null, "", backingNode); }
+	
+	private
+	WriteBehindPreferences(WriteBehindPreferences parent, String name, Preferences backingNode) {
+		super(parent, name);
+		root = parent == null ? this : parent.root;
+		this.backingNode = backingNode;
+		
+		try {
+			for(String key : backingNode.keys()) {
+				String s = backingNode.get(key, null);
+				if(s != null) values.put(key, s);
+			}
+		} catch(BackingStoreException e) {
+			CC.getLogger().log(Level.INFO, "Failed to load the preferences", e);
+		}
+		
+		backingNode.addPreferenceChangeListener(new BackingNodeListener());
+	}
+	
+	/**
+	 * Starts writing the changes of the whole tree in the background and
+	 * registers a shutdown hook which writes the pending changes.
+	 * Invoking this method more than once has no effect.
+	 */
+	public void
+	startWriteBehind() {
+		if(root != this) {
+			root.startWriteBehind();
+			return;
+		}
+		
+		synchronized(lock) {
+			if(executor != null) return;
+			
+			executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread
+				newThread(Runnable r) {
+					Thread t = new Thread(r, "Preferences write-behind");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			@Override
+			public void
+			run() {
+				try { WriteBehindPreferences.this.flush(); }
+				catch(BackingStoreException e) {
+					CC.getLogger().log(Level.INFO, "Failed to save the preferences", e);
+				}
+			}
+		});
+	}
+	
+	@Override
+	protected String
+	getSpi(String key) { return values.get(key); }
+	
+	@Override
+	protected void
+	putSpi(String key, String value) {
+		values.put(key, value);
+		addPendingChange(key, value);
+	}
+	
+	@Override
+	protected void
+	removeSpi(String key) {
+		values.remove(key);
+		addPendingChange(key, null);
+	}
+	
+	/** Should be invoked while holding {@link #lock}. */
+	private void
+	addPendingChange(String key, String value) {
+		ScheduledExecutorService ex = root.executor;
+		if(ex == null) {
+			if(value == null) backingNode.remove(key);
+			else backingNode.put(key, value);
+			return;
+		}
+		
+		pendingChanges.remove(key);
+		pendingChanges.put(key, value);
+		
+		if(flushScheduled) return;
+		flushScheduled = true;
+		
+		ex.schedule(new Runnable() {
+			@Override
+			public void
+			run() { writePendingChanges(); }
+		}, FLUSH_DELAY, TimeUnit.MILLISECONDS);
+	}
+	
+	/** Writes the pending changes of this node and its descendants. */
+	private void
+	writeAllPendingChanges() {
+		writePendingChanges();
+		
+		AbstractPreferences[] children;
+		synchronized(lock) { children = cachedChildren(); }
+		
+		for(AbstractPreferences p : children) {
+			((WriteBehindPreferences)p).writeAllPendingChanges();
+		}
+	}
+	
+	/** Writes the pending changes to the underlying preference node. */
+	private void
+	writePendingChanges() {
+		synchronized(writeLock) {
+			Map<String, String> changes;
+			synchronized(lock) {
+				flushScheduled = false;
+				if(pendingChanges.isEmpty()) return;
+				changes = pendingChanges;
+				pendingChanges = new LinkedHashMap<String, String>();
+			}
+			
+			for(Map.Entry<String, String> e : changes.entrySet()) {
+				if(e.getValue() == null) backingNode.remove(e.getKey());
+				else backingNode.put(e.getKey(), e.getValue());
+			}
+		}
+	}
+	
+	@Override
+	protected String[]
+	keysSpi() { return values.keySet().toArray(new String[values.size()]); }
+	
+	@Override
+	protected String[]
+	childrenNamesSpi() throws BackingStoreException { return backingNode.childrenNames(); }
+	
+	@Override
+	protected AbstractPreferences
+	childSpi(String name) {
+		return new WriteBehindPreferences(this, name, backingNode.node(name));
+	}
+	
+	@Override
+	protected void
+	removeNodeSpi() throws BackingStoreException {
+		pendingChanges.clear();
+		backingNode.removeNode();
+	}
+	
+	/**
+	 * Writes the pending changes of this node and its descendants to the
+	 * underlying nodes and forces the underlying nodes to be persisted.
+	 */
+	@Override
+	public void
+	flush() throws BackingStoreException {
+		writeAllPendingChanges();
+		backingNode.flush();
+	}
+	
+	@Override
+	protected void
+	flushSpi() throws BackingStoreException { }
+	
+	@Override
+	public void
+	sync() throws BackingStoreException { flush(); }
+	
+	@Override
+	protected void
+	syncSpi() throws BackingStoreException { }
+	
+	/** Reflects in the cache the changes made directly to the underlying node. */
+	private class BackingNodeListener implements PreferenceChangeListener {
+		@Override
+		public void
+		preferenceChange(PreferenceChangeEvent e) {
+			synchronized(lock) {
+				if(pendingChanges.containsKey(e.getKey())) return;
+				
+				if(e.getNewValue() == null) values.remove(e.getKey());
+				else values.put(e.getKey(), e.getNewValue());
+			}
+		}
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ *   JSampler - a front-end for LinuxSampler
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of JSampler.
+ *
+ *   JSampler is free software: you can redistribute it and/or modify it under
+ *   the terms of the GNU General Public License as published by the Free
+ *   Software Foundation, either version 3 of the License, or (at your option)
+ *   any later version.
+ *
+ *   JSampler is distributed in the hope that it will be useful, but WITHOUT
+ *   ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *   FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ *   more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with JSampler. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.grigoriliev.jsampler.classic.view;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import java.util.Random;
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Measures the tokenizer and the keyword matching of {@link LscpScriptValidator}
+ * on a generated LSCP script. The script is generated from a fixed seed,
+ * so every run works on the same input. Run with
+ * <code>mvn -P jmh test-compile exec:exec</code>.
+ * @author Grigor Iliev
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class LscpScriptValidatorBenchmark {
+	/** The LSCP command vocabulary used to build the keyword trie. */
+	final static String[] COMMANDS = {
+		"ADD CHANNEL",
+		"ADD CHANNEL MIDI_INPUT <sampler-channel> <midi-device-id> <midi-port>",
+		"CREATE AUDIO_OUTPUT_DEVICE <audio-output-driver> <param-list>",
+		"CREATE MIDI_INPUT_DEVICE <midi-input-driver> <param-list>",
+		"GET CHANNEL INFO <sampler-channel>",
+		"GET CHANNEL VOICE_COUNT <sampler-channel>",
+		"LOAD ENGINE <engine-name> <sampler-channel>",
+		"LOAD INSTRUMENT '<filename>' <instr-index> <sampler-channel>",
+		"LOAD INSTRUMENT NON_MODAL '<filename>' <instr-index> <sampler-channel>",
+		"MAP MIDI_INSTRUMENT <map> <midi-bank> <midi-prog> <engine-name> '<filename>' " +
+			"<instr-index> <volume-value>",
+		"REMOVE CHANNEL <sampler-channel>",
+		"RESET CHANNEL <sampler-channel>",
+		"SET CHANNEL AUDIO_OUTPUT_CHANNEL <sampler-chan> <audio-out> <audio-in>",
+		"SET CHANNEL AUDIO_OUTPUT_DEVICE <sampler-channel> <audio-device-id>",
+		"SET CHANNEL MIDI_INPUT_CHANNEL <sampler-channel> <midi-input-chan>",
+		"SET CHANNEL MUTE <sampler-channel> <mute>",
+		"SET CHANNEL SOLO <sampler-channel> <solo>",
+		"SET CHANNEL VOLUME <sampler-channel> <volume>",
+		"SET VOLUME <volume>"
+	};
+	
+	private final static long SEED = 2007;
+	
+	@Param({ "100000" })
+	public int lineCount;
+	
+	private String[] lines;
+	private LscpScriptValidator validator;
+	
+	@Setup
+	public void
+	setup() {
+		lines = generateScript(lineCount, SEED);
+		validator = new LscpScriptValidator(COMMANDS);
+	}
+	
+	/** Splits every line of the script into tokens. */
+	@Benchmark
+	public void
+	tokenize(Blackhole bh) {
+		Vector<String> tokens = new Vector<String>();
+		for(String line : lines) {
+			tokens.clear();
+			bh.consume(LscpScriptValidator.tokenize(line, tokens));
+			bh.consume(tokens.size());
+		}
+	}
+	
+	/** Validates every line of the script. */
+	@Benchmark
+	public void
+	validate(Blackhole bh) {
+		for(String line : lines) bh.consume(validator.validate(line));
+	}
+	
+	/**
+	 * Generates a valid LSCP script with the specified number of lines.
+	 * The script consists of channel setup commands, instrument loading
+	 * and MIDI mapping commands with quoted file names containing escape
+	 * sequences, along with comments and empty lines.
+	 * @param lineCount The number of lines to generate.
+	 * @param seed The seed of the random generator, which determines the script.
+	 */
+	static String[]
+	generateScript(int lineCount, long seed) {
+		Random r = new Random(seed);
+		String[] script = new String[lineCount];
+		
+		for(int i = 0; i < lineCount; i++) {
+			int chn = r.nextInt(128);
+			String file = "'/usr/share/samples/Bank " + r.nextInt(1000) +
+				"/Piano\\x20" + r.nextInt(100) + ".gig'";
+			
+			switch(r.nextInt(10)) {
+			case 0: script[i] = "# channel " + chn; break;
+			case 1: script[i] = ""; break;
+			case 2: script[i] = "ADD CHANNEL"; break;
+			case 3: script[i] = "LOAD ENGINE GIG " + chn; break;
+			case 4:
+				script[i] = "LOAD INSTRUMENT NON_MODAL " + file + " " + r.nextInt(4) + " " + chn;
+				break;
+			case 5:
+				script[i] = "MAP MIDI_INSTRUMENT 0 " + r.nextInt(128) + " " +
+					r.nextInt(128) + " GIG " + file + " 0 1.0";
+				break;
+			case 6: script[i] = "SET CHANNEL VOLUME " + chn + " " + r.nextFloat(); break;
+			case 7: script[i] = "SET CHANNEL MIDI_INPUT_CHANNEL " + chn + " ALL"; break;
+			case 8: script[i] = "SET CHANNEL AUDIO_OUTPUT_DEVICE " + chn + " 0"; break;
+			default: script[i] = "GET CHANNEL INFO " + chn;
+			}
+		}
+		
+		return script;
+	}
+	
+	/**
+	 * Writes the generated script to the specified file, so that
+	 * the same input can be validated through the user interface.
+	 * Usage: <code>LscpScriptValidatorBenchmark &lt;file&gt; [line count]</code>
+	 */
+	public static void
+	main(String[] args) throws IOException {
+		int n = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+		
+		PrintWriter out = new PrintWriter(new File(args[0]), "UTF-8");
+		try {
+			for(String line : generateScript(n, SEED)) out.println(line);
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ *   JSampler - a front-end for LinuxSampler
+ *
+ *   Copyright (C) 2005-2023 Grigor Iliev <grigor@grigoriliev.com>
+ *
+ *   This file is part of JSampler.
+ *
+ *   JSampler is free software: you can redistribute it and/or modify it under
+ *   the terms of the GNU General Public License as published by the Free
+ *   Software Foundation, either version 3 of the License, or (at your option)
+ *   any later version.
+ *
+ *   JSampler is distributed in the hope that it will be useful, but WITHOUT
+ *   ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *   FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ *   more details.
+ *
+ *   You should have received a copy of the GNU General Public License along
+ *   with JSampler. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.grigoriliev.jsampler.classic.view;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JTree;
+
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.grigoriliev.jsampler.MidiInstrumentMap;
+
+import com.grigoriliev.jsampler.jlscp.LscpException;
+import com.grigoriliev.jsampler.jlscp.MidiInstrumentEntry;
+import com.grigoriliev.jsampler.jlscp.MidiInstrumentInfo;
+
+
+/**
+ * Measures the switching of the MIDI instrument tree between two fully
+ * populated maps of 128 banks with 128 programs each. Each invocation does
+ * what <code>MidiInstrumentsPane.setMidiInstrumentMap</code> does with the tree
+ * and lays the tree out, so the result can be compared against the frame
+ * budget of <code>MidiInstrumentMapsPage</code> (16ms). Run with
+ * <code>mvn -P jmh test-compile exec:exec -Djmh.benchmarks=MidiInstrumentMapSwitch</code>.
+ * @author Grigor Iliev
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgs = "-Djava.awt.headless=true")
+public class MidiInstrumentMapSwitchBenchmark {
+	private final static int BANK_COUNT = 128;
+	private final static int PROGRAM_COUNT = 128;
+	
+	private final MidiInstrumentMap[] maps = new MidiInstrumentMap[2];
+	private final JTree tree = new JTree((TreeModel)null);
+	
+	private LazyMidiInstrumentTreeModel treeModel = null;
+	private int current = 0;
+	
+	@Setup
+	public void
+	setup() throws LscpException {
+		for(int i = 0; i < maps.length; i++) maps[i] = createMap(i);
+		tree.setRootVisible(false);
+		tree.setShowsRootHandles(true);
+	}
+	
+	/** Switches to the other map. */
+	@Benchmark
+	public Object
+	switchMap() {
+		current = 1 - current;
+		
+		if(treeModel != null) treeModel.uninstall();
+		treeModel = new LazyMidiInstrumentTreeModel(maps[current]);
+		tree.setModel(treeModel);
+		return tree.getPreferredSize();
+	}
+	
+	/** Switches to the other map and expands its first bank. */
+	@Benchmark
+	public Object
+	switchMapAndExpandBank() {
+		switchMap();
+		
+		Object bank = treeModel.getChild(treeModel.getRoot(), 0);
+		tree.expandPath(new TreePath(new Object[] { treeModel.getRoot(), bank }));
+		return tree.getPreferredSize();
+	}
+	
+	/**
+	 * Creates a MIDI instrument map with an instrument
+	 * mapped to every program of every bank.
+	 */
+	static MidiInstrumentMap
+	createMap(int mapId) throws LscpException {
+		MidiInstrumentMap map = new MidiInstrumentMap(mapId, "Map " + mapId);
+		
+		for(int bank = 0; bank < BANK_COUNT; bank++) {
+			for(int prog = 0; prog < PROGRAM_COUNT; prog++) {
+				MidiInstrumentEntry entry = new MidiInstrumentEntry(bank, prog);
+				String[] info = {
+					"NAME: Instrument " + bank + "/" + prog,
+					"ENGINE_NAME: GIG",
+					"INSTRUMENT_FILE: /usr/share/samples/Bank " + bank + ".gig",
+					"INSTRUMENT_NR: " + prog,
+					"INSTRUMENT_NAME: Program " + prog,
+					"LOAD_MODE: ON_DEMAND",
+					"VOLUME: 1.0"
+				};
+				
+				map.mapMidiInstrument(entry, new MidiInstrumentInfo(mapId, entry, info));
+			}
+		}
+		
+		return map;
+	}
+}